@@ -0,0 +1,187 @@
+package bench;
+
+import src.BTA;
+import src.ConvertGraph;
+import src.Graph6;
+import src.GraphBinary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for the separate steps of the backtracking algorithm on the fixed graph6 corpora in bench/fixtures.
+ * Every benchmark is run on every corpus: a few warmup iterations so the JIT compiler is done, then the measured
+ * iterations. An iteration repeats the benchmark over the whole corpus for a fixed time, the result is the average
+ * time per graph with the standard deviation over the measured iterations.
+ *
+ * Usage: java -cp target/classes:target/bench bench.Benchmarks [options] [fixtures directory]
+ *   -b <regex>   only run the benchmarks whose name (benchmark/corpus) matches the regex
+ *   -w <n>       amount of warmup iterations (default 3)
+ *   -i <n>       amount of measured iterations (default 5)
+ *   -t <ms>      time of one iteration in milliseconds (default 1000)
+ */
+public class Benchmarks {
+
+    /**
+     * One step that is measured, run on one graph of the corpus.
+     */
+    private interface Benchmark {
+        long run(Corpus corpus, int graph);
+    }
+
+    /**
+     * The graphs of one fixture file, kept in every form a benchmark starts from.
+     */
+    private static class Corpus {
+        private final String name;
+        private final byte[][] graph6;
+        private final int[] sizes;
+        private final int[][][] adjMatrices;
+        private final long[][] neighbours;
+        private final byte[][] binary;
+
+        private Corpus(String name, List<String> lines) {
+            this.name = name;
+            graph6 = new byte[lines.size()][];
+            sizes = new int[lines.size()];
+            adjMatrices = new int[lines.size()][][];
+            neighbours = new long[lines.size()][];
+            binary = new byte[lines.size()][];
+            for (int g = 0; g < lines.size(); g++) {
+                graph6[g] = lines.get(g).getBytes(StandardCharsets.US_ASCII);
+                sizes[g] = Graph6.size(graph6[g], 0, graph6[g].length);
+                adjMatrices[g] = new BTA(graph6[g], 0, graph6[g].length).getAdjMatrix();
+                neighbours[g] = new long[sizes[g] * Graph6.words(sizes[g])];
+                Graph6.decode(graph6[g], 0, graph6[g].length, sizes[g], neighbours[g]);
+                binary[g] = GraphBinary.encode(sizes[g], neighbours[g]);
+            }
+        }
+    }
+
+    /**
+     * Result of every benchmark, so the JIT compiler can not remove the work.
+     */
+    private static volatile long sink;
+
+    public static void main(String[] args) throws IOException {
+        String filter = ".*";
+        int warmup = 3;
+        int iterations = 5;
+        long iterationTime = 1000;
+        String fixtures = "bench/fixtures";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-b": filter = args[++i]; break;
+                case "-w": warmup = Integer.parseInt(args[++i]); break;
+                case "-i": iterations = Integer.parseInt(args[++i]); break;
+                case "-t": iterationTime = Long.parseLong(args[++i]); break;
+                default: fixtures = args[i];
+            }
+        }
+
+        LinkedHashMap<String, Benchmark> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("decode", (corpus, g) -> {
+            int n = corpus.sizes[g];
+            long[] neighbours = new long[n * Graph6.words(n)];
+            Graph6.decode(corpus.graph6[g], 0, corpus.graph6[g].length, n, neighbours);
+            return neighbours[neighbours.length - 1];
+        });
+        benchmarks.put("decodeBinary", (corpus, g) -> {
+            int n = corpus.sizes[g];
+            long[] neighbours = new long[n * Graph6.words(n)];
+            GraphBinary.decode(ByteBuffer.wrap(corpus.binary[g]), 0, corpus.binary[g].length, n, neighbours);
+            return neighbours[neighbours.length - 1];
+        });
+        benchmarks.put("encode", (corpus, g) ->
+                Graph6.encode(corpus.sizes[g], corpus.neighbours[g]).length);
+        benchmarks.put("encodeBinary", (corpus, g) ->
+                GraphBinary.encode(corpus.sizes[g], corpus.neighbours[g]).length);
+        benchmarks.put("construct", (corpus, g) ->
+                new BTA(corpus.graph6[g], 0, corpus.graph6[g].length).getDimension());
+        benchmarks.put("constructFromMatrix", (corpus, g) ->
+                new BTA(corpus.adjMatrices[g]).getDimension());
+        benchmarks.put("calcInjNeighbours", (corpus, g) -> {
+            int n = corpus.sizes[g];
+            long[] injNeighbours = new long[n * Graph6.words(n)];
+            BTA.calcInjNeighbours(n, corpus.neighbours[g], injNeighbours);
+            return injNeighbours[injNeighbours.length - 1];
+        });
+        benchmarks.put("solve", (corpus, g) -> {
+            BTA bta = new BTA(corpus.graph6[g], 0, corpus.graph6[g].length);
+            bta.calcInjChromaticNumber();
+            return bta.getInjChromaticNumber();
+        });
+        benchmarks.put("convertAdjMatrix", (corpus, g) ->
+                ConvertGraph.convertAdjMatrix(corpus.adjMatrices[g]).length);
+
+        List<Corpus> corpora = readCorpora(new File(fixtures));
+        Pattern pattern = Pattern.compile(filter);
+        System.out.printf("%-40s %8s %14s %12s%n", "Benchmark", "Graphs", "ns/graph", "Error");
+        for (Map.Entry<String, Benchmark> benchmark : benchmarks.entrySet()) {
+            for (Corpus corpus : corpora) {
+                String name = benchmark.getKey() + "/" + corpus.name;
+                if (!pattern.matcher(name).find()) {
+                    continue;
+                }
+                for (int i = 0; i < warmup; i++) {
+                    iteration(benchmark.getValue(), corpus, iterationTime);
+                }
+                double[] results = new double[iterations];
+                for (int i = 0; i < iterations; i++) {
+                    results[i] = iteration(benchmark.getValue(), corpus, iterationTime);
+                }
+                double mean = Arrays.stream(results).average().orElse(0);
+                double variance = Arrays.stream(results).map(r -> (r - mean) * (r - mean)).sum() / Math.max(1, iterations - 1);
+                System.out.printf("%-40s %8d %14.1f %12.1f%n", name, corpus.graph6.length, mean, Math.sqrt(variance));
+            }
+        }
+    }
+
+    /**
+     * Run the benchmark over the whole corpus until the given time has passed.
+     * @return The average time per graph in nanoseconds.
+     */
+    private static double iteration(Benchmark benchmark, Corpus corpus, long iterationTime) {
+        long result = 0;
+        long graphs = 0;
+        long start = System.nanoTime();
+        long stop = start + iterationTime * 1000000;
+        long now;
+        do {
+            for (int g = 0; g < corpus.graph6.length; g++) {
+                result += benchmark.run(corpus, g);
+            }
+            graphs += corpus.graph6.length;
+            now = System.nanoTime();
+        } while (now < stop);
+        sink = result;
+        return (now - start) / (double) graphs;
+    }
+
+    /**
+     * Read every .g6 file in the directory as a corpus, in order of the file names.
+     */
+    private static List<Corpus> readCorpora(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".g6"));
+        if (files == null || files.length == 0) {
+            throw new IOException("No .g6 fixtures found in " + directory);
+        }
+        Arrays.sort(files);
+        List<Corpus> corpora = new ArrayList<>();
+        for (File file : files) {
+            List<String> lines = new ArrayList<>();
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII)) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+            corpora.add(new Corpus(file.getName().replace(".g6", ""), lines));
+        }
+        return corpora;
+    }
+}
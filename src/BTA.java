@@ -1,6 +1,12 @@
 package src;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 /**
  * Class that implements the backtracking algorithm.
@@ -10,18 +16,26 @@ import java.util.*;
 public class BTA {
 
     /**
-     * The adjacency matrix of the graph we are working with.
+     * The number of vertices from which the injective neighbours are calculated on several threads.
      */
-    private final int[][] adjMatrix;
+    private static final int PARALLEL_ROWS = 512;
 
-    public int[][] getAdjMatrix(){
-        return adjMatrix;
-    }
+    /**
+     * The amount of subproblems per thread when the search is split, more subproblems balance the work better.
+     */
+    private static final int SUBPROBLEMS_PER_THREAD = 8;
 
     /**
-     * The coloring used when running the algorithm, this is not the final coloring!
+     * The adjacency matrix of the graph we are working with, only built when it is asked for.
      */
-    private int[] color;
+    private int[][] adjMatrix;
+
+    public int[][] getAdjMatrix(){
+        if (adjMatrix == null){
+            adjMatrix = Graph6.toAdjacencyMatrix(dimension, neighbours);
+        }
+        return adjMatrix;
+    }
 
     /**
      * The coloring that is used for the smallest injective chromatic number.
@@ -57,24 +71,40 @@ public class BTA {
     }
 
     /**
-     * A list of bitsets representing the restrictions on the vertices when coloring the graph.
+     * Returns true if the injective chromatic number (and coloring) of the graph is calculated.
+     */
+    public boolean isCalculated(){
+        return injChromaticNum != (int) Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * The number of words of type long needed to store a set of vertices.
+     */
+    private final int words;
+
+    /**
+     * The neighbours of every vertex as bitboards, vertex v uses the words v * words until (v + 1) * words.
      */
-    private ArrayList<BitSet> colorRestrictions = new ArrayList<>();
+    private final long[] neighbours;
 
     /**
-     * A list of bitsets representing the neighbours of the vertex with number the index in the list.
+     * The injective neighbours of every vertex as bitboards, vertex v uses the words v * words until (v + 1) * words.
      */
-    private final ArrayList<BitSet> neighbours = new ArrayList<>();
+    private final long[] injNeighbours;
+
+    public long[] getInjNeighbours(){
+        return injNeighbours;
+    }
 
     /**
-     * A list of bitsets representing the injective neighbours of the vertex with number the index in the list.
+     * The degree of every vertex.
      */
-    private final ArrayList<BitSet> injNeighbours = new ArrayList<>();
+    private final int[] degrees;
 
     /**
-     * A list of Integers representing the degree of the vertex with number the index in the list.
+     * The engine that does the backtracking, chosen depending on the dimension of the graph.
      */
-    private final ArrayList<Integer> degrees = new ArrayList<>();
+    private ColoringEngine engine;
 
     /**
      * The maximum degree of the graph, initialized at -1.
@@ -82,6 +112,9 @@ public class BTA {
     private int maxDegree = -1;
 
     public int getMaxDegree(){
+        if (maxDegree == -1) {
+            calcMaxDegreeVertex();
+        }
         if (maxDegree == -1) {
             throw new RuntimeException("Maximum degree invalid!");
         }
@@ -89,107 +122,181 @@ public class BTA {
     }
 
     /**
-     * The graph6 notation of the graph.
+     * The lower bound for the injective chromatic number: the size of the biggest clique found in the graph of the
+     * injective neighbours, initialized at -1.
      */
-    private String graph6Notation = null;
+    private int lowerBound = -1;
 
-    public String getGraph6Notation() {
-        if (graph6Notation == null){
-            throw new RuntimeException("The graph6 notation is invalid!");
+    public int getLowerBound(){
+        if (lowerBound == -1) {
+            throw new RuntimeException("Lower bound not calculated yet!");
         }
-        return graph6Notation;
+        return lowerBound;
     }
 
     /**
-     * A list of Integers representing the vertices that do not have a single neighbour.
+     * False if the search was stopped by the time or node limit before the injective chromatic number was proven, the
+     * injective chromatic number is then the amount of colors of the best coloring found (an upper bound) and
+     * getLowerBound() gives the proven lower bound.
      */
-    private final ArrayList<Integer> noNeighbours = new ArrayList<>();
+    private boolean resolved = true;
+
+    public boolean isResolved(){
+        return resolved;
+    }
 
     /**
-     * Constructor for a new backtracking algorithm starting from the graph6 notation of the graph.
-     * @param graph6 A string containing the graph6 notation of the graph
+     * The time limit of the calculation in milliseconds, 0 for no limit.
      */
-    public BTA(String graph6){
-        //Build the adjacency matrix from the graph6 form.
-        graph6Notation = graph6;
-        dimension = sizeFromGraph6(graph6);
-        if (dimension == -1) {
-            throw new RuntimeException("Invalid Graph6 notation");
-        }
+    private long timeoutMillis = 0;
 
-        List<Byte> bitList = parseGraph6ToBits(graph6, dimension);
-        adjMatrix = (buildAdjacencyMatrix(bitList, dimension));
+    /**
+     * The maximum amount of search nodes of the calculation, 0 for no limit.
+     */
+    private long nodeLimit = 0;
 
-        color = new int[dimension];
+    /**
+     * Limit the calculation of the injective chromatic number. When a limit is reached, the best coloring found so
+     * far is kept and the graph is marked as not resolved.
+     * @param timeoutMillis The time limit in milliseconds, 0 for no limit.
+     * @param nodeLimit The maximum amount of search nodes, 0 for no limit.
+     */
+    public void setBudget(long timeoutMillis, long nodeLimit){
+        this.timeoutMillis = timeoutMillis;
+        this.nodeLimit = nodeLimit;
+    }
 
-        //Add a bitset for every node
-        for (int i = 0; i < dimension; i++){
-            colorRestrictions.add(new BitSet(dimension+1));
-        }
+    /**
+     * The pool the search is split over, null if the search runs on the calling thread.
+     */
+    private ForkJoinPool searchPool = null;
 
-        //Calc the neighbours and injective neighbours
-        calcNeighbours();
-        calcInjNeighbours();
+    /**
+     * Split the search of this graph in subproblems that are searched in parallel on the given pool. This helps for
+     * big graphs with a long search, the best coloring is shared so every subproblem prunes against it.
+     * @param searchPool The pool, null to search on the calling thread.
+     */
+    public void setSearchPool(ForkJoinPool searchPool){
+        this.searchPool = searchPool;
     }
 
     /**
-     * Returns the size of the graph when the graph is given in graph6 form.
-     * @param graph6 String of the graph in graph6 form.
-     * @return The size of the graph represented by the input.
+     * True if the symmetries of the graph are broken during the search.
      */
-    private static int sizeFromGraph6(String graph6) {
-        byte[] bytes = graph6.getBytes();
-        int n = bytes[0] - 63;
-        if (n == 63){
-            n = (short)((bytes[1] <<= 16 | (bytes[2] <<= 8) ) | (bytes[3]));
-        }
-        if (n < 0) {
-            return -1; // Invalid Graph6 notation
-        }
-        return n;
+    private boolean symmetryBreaking = false;
+
+    /**
+     * The automorphisms of the graph, null if they are not calculated (yet).
+     */
+    private List<int[]> automorphisms = null;
+
+    /**
+     * Break the symmetries of the graph during the search: the automorphisms of the graph are calculated before the
+     * search and colorings that are mapped onto each other by an automorphism are only searched once. This helps for
+     * graphs with a lot of symmetry, the injective chromatic number stays the same but the coloring found can differ.
+     * @param symmetryBreaking True to break the symmetries.
+     */
+    public void setSymmetryBreaking(boolean symmetryBreaking){
+        this.symmetryBreaking = symmetryBreaking;
     }
 
     /**
-     * Creates a bit list that represents the adjacency matrix.
-     * @param graph6 String of the graph in graph6 form.
-     * @param size The size of the given graph.
-     * @return A bit list that represents the adjacency matrix.
+     * The statistics of the search, null if they are not kept.
      */
-    private static List<Byte> parseGraph6ToBits(String graph6, int size) {
-        byte[] bytes = graph6.getBytes();
-        List<Byte> bitList = new ArrayList<>();
-        int i = 1;
-        if (size > 62){
-            i = 4;
+    private SearchStats stats = null;
+
+    public SearchStats getStats(){
+        return stats;
+    }
+
+    /**
+     * Keep the statistics of the search when the injective chromatic number is calculated.
+     */
+    public void enableStats(){
+        stats = new SearchStats();
+    }
+
+    /**
+     * The counter the search nodes are added to, null if they are not counted.
+     */
+    private LongAdder nodeCounter = null;
+
+    /**
+     * Add the search nodes of the calculation to the given counter while searching, see Progress.
+     * @param nodeCounter The counter, can be shared by several graphs and threads.
+     */
+    public void setNodeCounter(LongAdder nodeCounter){
+        this.nodeCounter = nodeCounter;
+    }
+
+    /**
+     * The graph6 notation of the graph, as a String when it was asked for or given.
+     */
+    private String graph6Notation = null;
+
+    /**
+     * The bytes of the graph6 notation of the graph, null if the graph was not given in graph6 notation.
+     */
+    private byte[] graph6Bytes = null;
+
+    public String getGraph6Notation() {
+        if (graph6Notation == null && graph6Bytes != null){
+            graph6Notation = new String(graph6Bytes, StandardCharsets.US_ASCII);
         }
-        for (; i < bytes.length; i++) {
-            byte byteValue = (byte) (bytes[i] - 63);
-            for (int shift = 5; shift >= 0; shift--) {
-                byte mask = (byte) (1 << shift);
-                bitList.add((byte) ((byteValue & mask) > 0 ? 1 : 0));
-            }
+        //A graph that was not given in graph6 notation is encoded when the notation is needed
+        if (graph6Notation == null && neighbours != null){
+            graph6Notation = new String(Graph6.encode(dimension, neighbours), StandardCharsets.US_ASCII);
         }
-        int adjustedBitListSize = bitList.size() - (bitList.size() - (size * (size - 1)) / 2);
-        return bitList.subList(0, adjustedBitListSize);
+        if (graph6Notation == null){
+            throw new RuntimeException("The graph6 notation is invalid!");
+        }
+        return graph6Notation;
     }
 
     /**
-     * Builds the adjacency matrix when the bit list from parseGraph6ToBits() and size is given.
-     * @param bitList The bit list representing the adjacency matrix from parseGraph6ToBits().
-     * @param size The size of the graph.
-     * @return Returns the adjacency matrix of the graph.
+     * Constructor for a new backtracking algorithm starting from the graph6 notation of the graph.
+     * @param graph6 A string containing the graph6 notation of the graph
      */
-    private static int[][] buildAdjacencyMatrix(List<Byte> bitList, int size) {
-        int[][] adjMatrix = new int[size][size];
-        int bitIndex = 0;
-        for (int i = 1; i < size; i++) {
-            for (int j = 0; j < i; j++) {
-                adjMatrix[i][j] = bitList.get(bitIndex);
-                adjMatrix[j][i] = bitList.get(bitIndex);
-                bitIndex++;
-            }
+    public BTA(String graph6){
+        this(graph6.getBytes(StandardCharsets.US_ASCII), 0, graph6.length());
+        graph6Notation = graph6;
+    }
+
+    /**
+     * Constructor for a new backtracking algorithm starting from the graph6 notation of the graph, given as bytes.
+     * @param data The bytes containing the graph6 notation of the graph.
+     * @param offset The index of the first byte of the graph6 notation.
+     * @param length The number of bytes of the graph6 notation.
+     */
+    public BTA(byte[] data, int offset, int length){
+        this(ByteBuffer.wrap(data), offset, length);
+    }
+
+    /**
+     * Constructor for a new backtracking algorithm starting from the graph6 notation of the graph in a buffer, for
+     * example a part of a memory-mapped file. The graph is decoded straight into the bitboards, without building the
+     * adjacency matrix, only the bytes of the graph6 notation are copied.
+     * @param buffer The buffer containing the graph6 notation of the graph.
+     * @param offset The index of the first byte of the graph6 notation.
+     * @param length The number of bytes of the graph6 notation.
+     */
+    public BTA(ByteBuffer buffer, int offset, int length){
+        dimension = Graph6.size(buffer, offset, length);
+        if (dimension == -1) {
+            throw new RuntimeException("Invalid Graph6 notation");
         }
-        return adjMatrix;
+        graph6Bytes = new byte[length];
+        buffer.get(offset, graph6Bytes);
+
+        words = Graph6.words(dimension);
+        neighbours = new long[dimension * words];
+        injNeighbours = new long[dimension * words];
+        degrees = new int[dimension];
+        Graph6.decode(buffer, offset, length, dimension, neighbours);
+
+        //Calc the degrees and injective neighbours
+        calcDegrees();
+        calcInjNeighbours();
     }
 
     /**
@@ -199,35 +306,102 @@ public class BTA {
     public BTA(int[][] adjMatrix){
         this.adjMatrix = adjMatrix;
         dimension = adjMatrix.length;
-        color = new int[dimension];
-
-        //Add a bitset for every node
-        for (int i = 0; i < dimension; i++){
-            colorRestrictions.add(new BitSet(dimension+1));
-        }
+        words = Graph6.words(dimension);
+        neighbours = new long[dimension * words];
+        injNeighbours = new long[dimension * words];
+        degrees = new int[dimension];
 
         calcNeighbours();
         calcInjNeighbours();
     }
 
+    /**
+     * Constructor for a new backtracking algorithm starting from the neighbours of the graph as bitboards, for example
+     * decoded from the binary format (see GraphBinary).
+     * @param dimension The number of vertices in the graph.
+     * @param neighbours The neighbours, vertex v uses the words v * Graph6.words(dimension) until
+     *                   (v + 1) * Graph6.words(dimension). The array is used by the backtracking, not copied.
+     */
+    public BTA(int dimension, long[] neighbours){
+        this.dimension = dimension;
+        words = Graph6.words(dimension);
+        this.neighbours = neighbours;
+        injNeighbours = new long[dimension * words];
+        degrees = new int[dimension];
+
+        calcDegrees();
+        calcInjNeighbours();
+    }
+
+    /**
+     * Constructor for a new backtracking algorithm starting from the compressed adjacency lists of a graph, for example
+     * a big sparse graph read from sparse6 or DIMACS. The injective neighbours are calculated from the adjacency lists
+     * (every vertex goes over the neighbours of its neighbours), no adjacency matrix is built.
+     * @param graph The graph.
+     */
+    public BTA(CsrGraph graph){
+        dimension = graph.getSize();
+        words = Graph6.words(dimension);
+        neighbours = graph.toBitboards();
+        injNeighbours = new long[dimension * words];
+        degrees = new int[dimension];
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        for (int u = 0; u < dimension; u++){
+            degrees[u] = graph.getDegree(u);
+            for (int i = offsets[u]; i < offsets[u + 1]; i++){
+                int v = targets[i];
+                for (int j = offsets[v]; j < offsets[v + 1]; j++){
+                    int w = targets[j];
+                    injNeighbours[u * words + (w >>> 6)] |= 1L << w;
+                }
+            }
+            injNeighbours[u * words + (u >>> 6)] &= ~(1L << u);
+        }
+    }
+
+    /**
+     * Constructor for the backtracking on a component of the graph of the injective neighbours (see Reduction), only
+     * the injective neighbours are known.
+     * @param dimension The number of vertices in the component.
+     * @param neighbours Always null, the neighbours of a component are not known.
+     * @param injNeighbours The injective neighbours, vertex v uses the words v * Graph6.words(dimension) until
+     *                      (v + 1) * Graph6.words(dimension).
+     */
+    private BTA(int dimension, long[] neighbours, long[] injNeighbours){
+        this.dimension = dimension;
+        words = Graph6.words(dimension);
+        this.neighbours = neighbours;
+        degrees = null;
+        this.injNeighbours = injNeighbours;
+    }
+
     /**
      * Calculate the neighbours and the degree each vertex and store them in neighbours and degrees.
      */
     private void calcNeighbours(){
-        int degree;
         for (int i = 0; i < dimension; i++){
-            neighbours.add(new BitSet());
-            degree = 0;
             for (int j = 0; j < dimension; j++){
                 if (i != j && adjMatrix[i][j] == 1){
-                    neighbours.get(i).set(j, true);
-                    degree++;
+                    neighbours[i * words + (j >>> 6)] |= 1L << j;
                 }
             }
-            degrees.add(degree);
-            if (degree == 0){
-                noNeighbours.add(i);
+        }
+        calcDegrees();
+    }
+
+    /**
+     * Calculate the degree of each vertex from the neighbours and store them in degrees.
+     */
+    private void calcDegrees(){
+        int degree;
+        for (int i = 0; i < dimension; i++){
+            degree = 0;
+            for (int w = 0; w < words; w++){
+                degree += Long.bitCount(neighbours[i * words + w]);
             }
+            degrees[i] = degree;
         }
     }
 
@@ -235,176 +409,466 @@ public class BTA {
      * Calculate the injective neighbours of each vertex and store them in injNeighbours.
      */
     private void calcInjNeighbours(){
-        for (int i = 0; i < dimension; i++){
-            injNeighbours.add(new BitSet());
-            for (int j = 0; j < dimension; j++){
-                if (i != j && isInjNeighbour(i, j)){
-                    injNeighbours.get(i).set(j, true);
+        calcInjNeighbours(dimension, neighbours, injNeighbours);
+    }
+
+    /**
+     * Calculate the injective neighbours of every vertex of a graph given as bitboards. Two vertices are injective
+     * neighbours if they have a common neighbour, so the injective neighbours of u are the union of the neighbours of
+     * all neighbours of u (without u itself), calculated 64 vertices at a time. For graphs with at least
+     * PARALLEL_ROWS vertices the rows are calculated in parallel.
+     * @param dimension The number of vertices in the graph.
+     * @param neighbours The neighbours of every vertex, vertex v uses the words v * words until (v + 1) * words.
+     * @param injNeighbours The bitboards the injective neighbours are written to, in the same layout.
+     */
+    public static void calcInjNeighbours(int dimension, long[] neighbours, long[] injNeighbours){
+        int words = Graph6.words(dimension);
+        if (dimension >= PARALLEL_ROWS){
+            IntStream.range(0, dimension).parallel().forEach(u -> calcInjRow(u, words, neighbours, injNeighbours));
+        }
+        else {
+            for (int u = 0; u < dimension; u++){
+                calcInjRow(u, words, neighbours, injNeighbours);
+            }
+        }
+    }
+
+    /**
+     * Calculate the injective neighbours of vertex u as the union of the neighbours of its neighbours.
+     */
+    private static void calcInjRow(int u, int words, long[] neighbours, long[] injNeighbours){
+        int row = u * words;
+        Arrays.fill(injNeighbours, row, row + words, 0);
+        for (int w = 0; w < words; w++){
+            for (long nb = neighbours[row + w]; nb != 0; nb &= nb - 1){
+                int v = (w << 6) + Long.numberOfTrailingZeros(nb);
+                for (int k = 0; k < words; k++){
+                    injNeighbours[row + k] |= neighbours[v * words + k];
                 }
             }
         }
+        injNeighbours[row + (u >>> 6)] &= ~(1L << u);
+    }
+
+    /**
+     * Calculate the injective chromatic number, using the result of an isomorphic graph if it is in the cache.
+     * @param cache The cache with the results of graphs seen before, can be null.
+     */
+    public void calcInjChromaticNumber(ResultCache cache){
+        long startNanos = System.nanoTime();
+        if (cache == null){
+            calcInjChromaticNumber();
+            return;
+        }
+        CanonicalForm form = new CanonicalForm(dimension, words, neighbours);
+        ResultCache.Entry entry = cache.get(form);
+        if (entry != null){
+            maxDegree = entry.getMaxDegree();
+            injChromaticNum = entry.getInjChromaticNumber();
+            lowerBound = injChromaticNum;
+            finalColoring = form.fromCanonical(entry.getColoring());
+            if (stats != null){
+                stats.setTotalNanos(System.nanoTime() - startNanos);
+            }
+            return;
+        }
+        automorphisms = form.getAutomorphisms();
+        calcInjChromaticNumber();
+        if (resolved){
+            cache.put(form, new ResultCache.Entry(maxDegree, injChromaticNum, form.toCanonical(finalColoring)));
+        }
     }
 
     public void calcInjChromaticNumber(){
-        int maxDegreeVertex = calcMaxDegreeVertex();
-        int n = 1;
-        int ncolor = 1;
+        long startNanos = System.nanoTime();
+        long[] clique = calcLowerBound();
 
-        //Give all vertices without any neighbours color 1.
-        for (Integer vertex : noNeighbours){
-            color[vertex] = 1;
-            n++;
+        //Remove the vertices that can be colored last and split the rest of the graph in components
+        Reduction reduction = new Reduction(dimension, words, injNeighbours, lowerBound);
+        if (reduction.isReduced()){
+            colorComponents(reduction, Integer.MAX_VALUE - 1, startNanos);
+        }
+        else {
+            colorInjGraph(clique, Integer.MAX_VALUE - 1, startNanos);
         }
+        if (stats != null){
+            stats.setTotalNanos(System.nanoTime() - startNanos);
+        }
+    }
 
-        //Give all the neighbours of a vertex with maximum degree a different color.
-        if (!(degrees.get(maxDegreeVertex) == 0)){
-            ncolor = 0;
-            for (int i = neighbours.get(maxDegreeVertex).nextSetBit(0); i >= 0; i = neighbours.get(maxDegreeVertex).nextSetBit(i+1)) {
-                ncolor++;
-                color[i] = ncolor;
-                updateRestrictionsInj(i, ncolor);
-                n++;
+    /**
+     * Calculate the injective chromatic number only as far as it matters for the given range, for example the
+     * thresholds of the filters for the maximum degree of the graph. It is only calculated exactly if it is between
+     * low and high: the search stops as soon as a coloring with low - 1 colors is found, and only colorings with at
+     * most high colors are searched. The reduction removes the vertices with less than low - 1 injective neighbours.
+     * The injective chromatic number and the coloring of the graph are only set when it is between low and high,
+     * otherwise isCalculated() stays false.
+     * When the time or node limit is reached before the answer is known, isResolved() is false and the graph keeps the
+     * best coloring found if it has at most high colors, like calcInjChromaticNumber().
+     * @param low The smallest injective chromatic number that is calculated exactly.
+     * @param high The biggest injective chromatic number that is calculated exactly.
+     * @return The injective chromatic number if it is between low and high, low - 1 if it is smaller and high + 1 if
+     *         it is bigger.
+     */
+    public int calcInjChromaticNumber(int low, int high){
+        long startNanos = System.nanoTime();
+        long[] clique = calcLowerBound();
+        int proven = lowerBound;
+        int result = high + 1;
+        resolved = true;
+        if (proven <= high){
+            //The search stops at the lower bound, so raising it to low - 1 stops it when the number is known to be smaller
+            lowerBound = Math.max(proven, low - 1);
+            Reduction reduction = new Reduction(dimension, words, injNeighbours, lowerBound);
+            if (reduction.isReduced()){
+                colorComponents(reduction, high, startNanos);
             }
+            else {
+                colorInjGraph(clique, high, startNanos);
+            }
+            result = injChromaticNum;
         }
 
-        //Color the rest of the graph using backtracking
-        colorGraphInj(calcNextVertex(), ncolor, n-1);
+        if (result >= low && result <= high){
+            lowerBound = resolved ? result : proven;
+        }
+        else {
+            injChromaticNum = (int) Double.POSITIVE_INFINITY;
+            finalColoring = null;
+            lowerBound = proven;
+        }
+        if (stats != null){
+            stats.setTotalNanos(System.nanoTime() - startNanos);
+        }
+        return Math.max(low - 1, Math.min(result, high + 1));
     }
 
     /**
-     * Calculate the vertex with the maximum degree of all the vertices in the graph.
-     * @return The vertex with the maximum degree out of all vertices.
+     * Decide if the graph has an injective coloring with at most k colors. This is the range search with the range
+     * [k + 1, k + 1] (see calcInjChromaticNumber(int, int)): it stops at the first coloring with at most k colors and
+     * never searches colorings with more than k + 1 colors. The injective chromatic number and the coloring of the graph
+     * are only kept when the injective chromatic number is exactly k + 1.
+     * When the time or node limit is reached before the answer is known, false is returned and isResolved() is false:
+     * true is always a proven answer.
+     * @param k The number of colors.
+     * @return True if and only if the injective chromatic number is at most k.
      */
-    private int calcMaxDegreeVertex(){
-        int result = -1;
-        int tempMaxDegree;
-        for (int i = 0; i < dimension; i++){
-            tempMaxDegree = degrees.get(i);
-            if (maxDegree < tempMaxDegree){
-                result = i;
-                maxDegree = tempMaxDegree;
-            }
+    public boolean isInjectivelyColorable(int k){
+        return calcInjChromaticNumber(k + 1, k + 1) <= k;
+    }
+
+    /**
+     * Calculate the lower bound: the vertices of a clique in the graph of the injective neighbours all need a
+     * different color, the neighbours of a vertex with maximum degree are such a clique. The biggest clique found is
+     * the lower bound.
+     * @return The clique, as a bitboard.
+     */
+    private long[] calcLowerBound(){
+        int maxDegreeVertex = calcMaxDegreeVertex();
+        long[] clique = calcClique();
+        int cliqueSize = 0;
+        for (long word : clique){
+            cliqueSize += Long.bitCount(word);
         }
-        return result;
+        if (cliqueSize <= maxDegree || maxDegree == 0){
+            cliqueSize = maxDegree;
+            System.arraycopy(neighbours, maxDegreeVertex * words, clique, 0, words);
+        }
+        lowerBound = Math.max(cliqueSize, 1);
+        return clique;
     }
 
     /**
-     * Calculate which vertex should be chosen next for the backtracking algorithm.
-     * The vertex with the biggest saturation degree (least amount of colors possible) is returned.
-     * @return The vertex that should be chosen next for the backtracking algorithm.
+     * Returns a backtracking on a component of the graph of the injective neighbours, with the same limits and
+     * settings as this one.
+     * @param vertices The sorted vertices of the component.
      */
-    private int calcNextVertex(){
-        int result = -1;
-        int tempsat;
-        int saturation = 0;
-        for (int i = 0; i < dimension; i++){
-            if (color[i] == 0){
-                tempsat = colorRestrictions.get(i).cardinality();
-                if (tempsat > saturation || result == -1){
-                    saturation = tempsat;
-                    result = i;
-                }
+    private BTA component(int[] vertices){
+        BTA component = new BTA(vertices.length, null, Reduction.induce(vertices, words, injNeighbours));
+        component.timeoutMillis = timeoutMillis;
+        component.nodeLimit = nodeLimit;
+        component.searchPool = searchPool;
+        component.symmetryBreaking = symmetryBreaking;
+        component.stats = stats;
+        component.nodeCounter = nodeCounter;
+        return component;
+    }
+
+    /**
+     * Color the components of the reduced graph one by one, biggest first, and color the removed vertices greedily.
+     * A component only has to be colored with less colors than the components before it (or the lower bound of the
+     * whole graph) if it can not be colored with that many colors.
+     * @param reduction The reduction of the graph of the injective neighbours.
+     * @param maxColors The biggest amount of colors a coloring may use, the components are not colored further once
+     *                  one of them needs more colors.
+     * @param startNanos The value of System.nanoTime() when the calculation started.
+     */
+    private void colorComponents(Reduction reduction, int maxColors, long startNanos){
+        int[] coloring = new int[dimension];
+        int numOfCol = lowerBound;
+        int proven = lowerBound;
+        resolved = true;
+        for (int[] vertices : reduction.getComponents()){
+            BTA component = component(vertices);
+            long[] clique = component.calcClique();
+            int cliqueSize = 0;
+            for (long word : clique){
+                cliqueSize += Long.bitCount(word);
+            }
+            if (cliqueSize > maxColors){
+                numOfCol = maxColors + 1;
+                break;
+            }
+            component.lowerBound = Math.max(cliqueSize, numOfCol);
+            component.colorInjGraph(clique, maxColors, startNanos);
+
+            for (int i = 0; i < vertices.length; i++){
+                coloring[vertices[i]] = component.finalColoring[i];
+            }
+            if (component.resolved && component.injChromaticNum > component.lowerBound){
+                proven = Math.max(proven, component.injChromaticNum);
+            }
+            proven = Math.max(proven, cliqueSize);
+            numOfCol = Math.max(numOfCol, component.injChromaticNum);
+            resolved = resolved && component.resolved;
+            if (numOfCol > maxColors){
+                break;
             }
         }
-        return result;
+        if (numOfCol <= maxColors){
+            reduction.colorRemoved(words, injNeighbours, coloring);
+        }
+        finalColoring = coloring;
+        injChromaticNum = numOfCol;
+        lowerBound = proven;
+        if (stats != null && stats.getFirstSolutionNanos() == 0){
+            stats.setFirstSolutionNanos(System.nanoTime() - startNanos);
+            stats.setOptimalSolutionNanos(stats.getFirstSolutionNanos());
+        }
     }
 
     /**
-     * Recursive backtracking algorithm for calculating the injective chromatic number of the graph.
-     * @param vertex The vertex we are currently colouring.
-     * @param numOfCol The number of colors currently already used.
-     * @param n The amount of iterations we have done. Only used for termination criteria.
+     * Color the graph of the injective neighbours: the vertices of the clique get a different color, the rest of the
+     * graph is colored by the heuristics and then by the backtracking, until a coloring with lowerBound colors is
+     * found or no better coloring exists.
+     * @param clique A clique in the graph of the injective neighbours, as a bitboard.
+     * @param maxColors The biggest amount of colors a coloring may use, when the heuristics need more colors only
+     *                  colorings with at most maxColors colors are searched.
+     * @param startNanos The value of System.nanoTime() when the calculation started.
      */
-    private void colorGraphInj(int vertex, int numOfCol, int n){
-        if (n == dimension && numOfCol <= injChromaticNum){
-            finalColoring = color.clone();
-            injChromaticNum = numOfCol;
+    private void colorInjGraph(long[] clique, int maxColors, long startNanos){
+        int n = 1;
+        int ncolor = 0;
+        engine = ColoringEngine.forGraph(dimension, words, injNeighbours);
+        for (int w = 0; w < words; w++) {
+            for (long nb = clique[w]; nb != 0; nb &= nb - 1) {
+                ncolor++;
+                engine.precolor((w << 6) + Long.numberOfTrailingZeros(nb), ncolor);
+                n++;
+            }
         }
 
-        else{
-            for (int c = 1; c <= numOfCol+1; c++){
-                if (!colorRestrictions.get(vertex).get(c) && numOfCol < injChromaticNum){
-                    color[vertex] = c;
-                    ArrayList<Integer> bits = new ArrayList<>();
-
-                    //Brought outside function
-                    for (int i = injNeighbours.get(vertex).nextSetBit(0); i >= 0; i = injNeighbours.get(vertex).nextSetBit(i+1)) {
-                        if (color[i] == 0 && !colorRestrictions.get(i).get(c)){
-                            colorRestrictions.get(i).set(c, true);
-                            bits.add(i);
-                        }
-                    }
+        //Start from a coloring found by DSATUR and iterated greedy, so the backtracking can prune from the start
+        int[] precoloring = engine.getColor().clone();
+        int[] heuristicColoring = precoloring.clone();
+        int upperBound = GreedyColoring.dsatur(dimension, words, injNeighbours, heuristicColoring);
+        upperBound = GreedyColoring.iteratedGreedy(dimension, words, injNeighbours, heuristicColoring, upperBound, lowerBound);
+        upperBound = Math.min(upperBound, maxColors + 1);
+        engine.setUpperBound(upperBound, heuristicColoring);
+        if (stats != null){
+            if (stats.getFirstSolutionNanos() == 0){
+                stats.setFirstSolutionNanos(System.nanoTime() - startNanos);
+            }
+            stats.setOptimalSolutionNanos(System.nanoTime() - startNanos);
+            engine.setStats(stats, startNanos);
+        }
 
-                    int nextVertex = calcNextVertex();
-                    if (c == numOfCol+1){
-                        if (numOfCol+1 < injChromaticNum) {
-                            colorGraphInj(nextVertex, numOfCol + 1, n+1); //Basic Pruning
-                        }
-                    }
-                    else {
-                        colorGraphInj(nextVertex, numOfCol, n+1);
-                    }
-                    resetBitsets(bits, c);
-                    color[vertex] = 0; //Backtracking
-                }
+        //Color the rest of the graph using backtracking, until a coloring with lowerBound colors is found
+        engine.setLowerBound(lowerBound);
+        engine.setBudget(nodeLimit, startNanos + timeoutMillis * 1000000, timeoutMillis > 0);
+        engine.setNodeCounter(nodeCounter);
+        if (symmetryBreaking && upperBound > lowerBound){
+            if (automorphisms == null){
+                //A component of the graph of the injective neighbours only has its injective neighbours
+                automorphisms = new CanonicalForm(dimension, words, neighbours != null ? neighbours : injNeighbours)
+                        .getAutomorphisms();
             }
+            engine.setAutomorphisms(automorphisms);
+        }
+        if (upperBound > lowerBound && searchPool != null){
+            parallelSearch(precoloring, ncolor, n-1, startNanos);
+        }
+        else {
+            if (upperBound > lowerBound){
+                engine.search(ncolor, n-1);
+            }
+            finalColoring = engine.getFinalColoring();
+            injChromaticNum = engine.getInjChromaticNum();
+            resolved = !engine.isAborted();
         }
     }
 
     /**
-     * Check if two vertices are neighbours of each other.
-     * @param i The first vertex.
-     * @param j The second vertex.
-     * @return True if and only if the two vertices are neighbours.
+     * Search on the search pool. The top levels of the backtracking are split in subproblems, until there are enough
+     * subproblems for every thread of the pool. Every subproblem is searched by its own engine, the engines share the
+     * best coloring found.
+     * @param precoloring The colors of the precolored vertices, 0 for the other vertices.
+     * @param ncolor The number of colors used by the precolored vertices.
+     * @param n The number of precolored vertices.
+     * @param startNanos The value of System.nanoTime() when the calculation started.
      */
-    private boolean isNeighbour(int i, int j){
-        return adjMatrix[i][j] == 1;
+    private void parallelSearch(int[] precoloring, int ncolor, int n, long startNanos){
+        List<int[]> subproblems = new ArrayList<>();
+        int target = searchPool.getParallelism() * SUBPROBLEMS_PER_THREAD;
+        for (int depth = 1; depth <= dimension - n; depth++){
+            subproblems.clear();
+            engine.split(ncolor, n, depth, subproblems);
+            if (engine.isAborted() || engine.getInjChromaticNum() <= lowerBound || subproblems.size() >= target
+                    || subproblems.isEmpty()){
+                break;
+            }
+        }
+        if (engine.isAborted() || subproblems.isEmpty() || engine.getInjChromaticNum() <= lowerBound){
+            finalColoring = engine.getFinalColoring();
+            injChromaticNum = engine.getInjChromaticNum();
+            resolved = !engine.isAborted();
+            return;
+        }
+
+        //The limits are shared by all subproblems
+        SharedIncumbent shared = new SharedIncumbent(engine.getInjChromaticNum(), engine.getFinalColoring(), nodeLimit,
+                startNanos + timeoutMillis * 1000000, timeoutMillis > 0);
+        List<ForkJoinTask<SearchStats>> tasks = new ArrayList<>();
+        for (int[] subproblem : subproblems){
+            tasks.add(ForkJoinTask.adapt(() -> searchSubproblem(subproblem, precoloring, n, shared, startNanos)));
+        }
+        for (ForkJoinTask<SearchStats> task : tasks){
+            searchPool.execute(task);
+        }
+        for (ForkJoinTask<SearchStats> task : tasks){
+            SearchStats taskStats = task.join();
+            if (stats != null){
+                stats.addSearch(taskStats.getNodes(), taskStats.getBacktracks(), taskStats.getPrunes(),
+                        taskStats.getMaxDepth(), taskStats.getSolutions());
+            }
+        }
+        if (stats != null && shared.isImproved()){
+            stats.setOptimalSolutionNanos(shared.getImprovedNanos() - startNanos);
+        }
+        finalColoring = shared.getColoring();
+        injChromaticNum = shared.getBound();
+        resolved = !shared.isAborted();
     }
 
     /**
-     * Check if two vertices are injective neighbours of each other.
-     * @param i The first vertex.
-     * @param j The second vertex.
-     * @return True if and only if the two vertices are injective neighbours.
+     * Search one subproblem with a new engine: the precolored vertices and the vertices of the subproblem are colored
+     * first, then the rest of the graph is colored using backtracking.
+     * @return The statistics of the search of the subproblem.
      */
-    private boolean isInjNeighbour(int i, int j){
+    private SearchStats searchSubproblem(int[] subproblem, int[] precoloring, int n, SharedIncumbent shared,
+                                         long startNanos){
+        SearchStats taskStats = new SearchStats();
+        if (shared.isAborted() || shared.getBound() <= lowerBound || subproblem[0] >= shared.getBound()){
+            return taskStats;
+        }
+        ColoringEngine taskEngine = ColoringEngine.forGraph(dimension, words, injNeighbours);
         for (int v = 0; v < dimension; v++){
-            if (v != i && v != j && isNeighbour(v, i) && isNeighbour(v, j)){
-                return true;
+            if (precoloring[v] != 0){
+                taskEngine.precolor(v, precoloring[v]);
             }
         }
-        return false;
+        for (int i = 1; i < subproblem.length; i += 2){
+            taskEngine.precolor(subproblem[i], subproblem[i + 1]);
+        }
+        taskEngine.setLowerBound(lowerBound);
+        taskEngine.setShared(shared);
+        if (symmetryBreaking){
+            taskEngine.setAutomorphisms(automorphisms);
+        }
+        taskEngine.setStats(taskStats, startNanos);
+        taskEngine.setNodeCounter(nodeCounter);
+        taskEngine.search(subproblem[0], n + subproblem.length / 2);
+        return taskStats;
     }
 
     /**
-     * Update colorRestrictions when coloring a vertex with the restrictions of the injective chromatic number of a graph.
-     * @param vertex A vertex that we colored.
-     * @param c The color we gave to the vertex.
-     * @return A list of vertices we changed the restrictions from.
+     * Calculate a maximal clique in the graph of the injective neighbours. Starting from every vertex, the clique is
+     * greedily extended with the candidate that has the most injective neighbours among the other candidates.
+     * @return The biggest clique found, as a bitboard.
      */
-    private ArrayList<Integer> updateRestrictionsInj(int vertex, int c){
-        //Vertex with index vertex gets color c
-        ArrayList<Integer> bits = new ArrayList<>();
+    private long[] calcClique(){
+        long[] best = new long[words];
+        int bestSize = 0;
+        long[] clique = new long[words];
+        long[] candidates = new long[words];
+
+        for (int v = 0; v < dimension; v++){
+            int size = 1;
+            Arrays.fill(clique, 0);
+            clique[v >>> 6] |= 1L << v;
+            System.arraycopy(injNeighbours, v * words, candidates, 0, words);
+            if (countInCandidates(v, candidates) + 1 <= bestSize){
+                continue; //This vertex can not be part of a bigger clique
+            }
+
+            while (true){
+                int next = -1;
+                int most = -1;
+                for (int w = 0; w < words; w++){
+                    for (long cand = candidates[w]; cand != 0; cand &= cand - 1){
+                        int u = (w << 6) + Long.numberOfTrailingZeros(cand);
+                        int count = countInCandidates(u, candidates);
+                        if (count > most){
+                            most = count;
+                            next = u;
+                        }
+                    }
+                }
+                if (next == -1){
+                    break;
+                }
+                clique[next >>> 6] |= 1L << next;
+                size++;
+                for (int w = 0; w < words; w++){
+                    candidates[w] &= injNeighbours[next * words + w];
+                }
+            }
 
-        for (int i = injNeighbours.get(vertex).nextSetBit(0); i >= 0; i = injNeighbours.get(vertex).nextSetBit(i+1)) {
-            if (color[i] == 0 && !colorRestrictions.get(i).get(c)){
-                colorRestrictions.get(i).set(c, true);
-                bits.add(i);
+            if (size > bestSize){
+                bestSize = size;
+                System.arraycopy(clique, 0, best, 0, words);
             }
         }
+        return best;
+    }
 
-        return bits;
+    /**
+     * Returns the number of injective neighbours of a vertex that are in the given set of vertices.
+     */
+    private int countInCandidates(int vertex, long[] candidates){
+        int count = 0;
+        for (int w = 0; w < words; w++){
+            count += Long.bitCount(injNeighbours[vertex * words + w] & candidates[w]);
+        }
+        return count;
     }
 
     /**
-     * Reset the bits for the given color and the given vertices to false. (backtracking)
-     * @param bits A list of ints representing the vertices we want to reset.
-     * @param c The color we want the bits to reset for.
+     * Calculate the vertex with the maximum degree of all the vertices in the graph.
+     * @return The vertex with the maximum degree out of all vertices.
      */
-    private void resetBitsets(ArrayList<Integer> bits, int c){
-        for (Integer bit : bits){
-            colorRestrictions.get(bit).set(c, false);
+    private int calcMaxDegreeVertex(){
+        int result = -1;
+        maxDegree = -1;
+        int tempMaxDegree;
+        for (int i = 0; i < dimension; i++){
+            tempMaxDegree = degrees[i];
+            if (maxDegree < tempMaxDegree){
+                result = i;
+                maxDegree = tempMaxDegree;
+            }
         }
+        return result;
     }
 
 }
\ No newline at end of file
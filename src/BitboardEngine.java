@@ -0,0 +1,138 @@
+package src;
+
+/**
+ * Backtracking search for graphs with at most 64 vertices. Every set of vertices and every set of colors fits in a
+ * single long: vertex v is bit v, color c is bit c - 1.
+ */
+class BitboardEngine extends ColoringEngine {
+
+    /**
+     * The injective neighbours of every vertex.
+     */
+    private final long[] injNeighbours;
+
+    /**
+     * The colors every vertex is not allowed to get anymore.
+     */
+    private final long[] colorRestrictions;
+
+    /**
+     * The vertices that do not have a color yet.
+     */
+    private long uncolored;
+
+    /**
+     * For every depth of the backtracking the vertices that got a new restriction when coloring at that depth.
+     */
+    private final long[] trail;
+
+    /**
+     * The saturation degree (number of colors it is not allowed to get) of every vertex.
+     */
+    private final int[] saturation;
+
+    /**
+     * The uncolored vertices grouped by saturation degree, bucket s contains the uncolored vertices with saturation s.
+     */
+    private final long[] buckets;
+
+    /**
+     * An upper bound for the biggest saturation degree of an uncolored vertex.
+     */
+    private int maxSaturation = 0;
+
+    /**
+     * Constructor for a new single word engine.
+     * @param dimension The number of vertices in the graph, at most 64.
+     * @param injNeighbours The injective neighbours of every vertex, one word per vertex.
+     */
+    BitboardEngine(int dimension, long[] injNeighbours){
+        super(dimension);
+        this.injNeighbours = injNeighbours;
+        this.colorRestrictions = new long[dimension];
+        this.uncolored = dimension == 64 ? -1L : (1L << dimension) - 1;
+        this.trail = new long[dimension + 1];
+        this.saturation = new int[dimension];
+        this.buckets = new long[dimension + 1];
+        this.buckets[0] = uncolored;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ties are broken by the number of uncolored injective neighbours, then by the smallest index.
+     */
+    @Override
+    protected int calcNextVertex(){
+        while (maxSaturation > 0 && buckets[maxSaturation] == 0){
+            maxSaturation--;
+        }
+        long candidates = buckets[maxSaturation];
+        if ((candidates & (candidates - 1)) == 0){
+            return candidates == 0 ? -1 : Long.numberOfTrailingZeros(candidates);
+        }
+        int result = -1;
+        int degree = -1;
+        for (; candidates != 0; candidates &= candidates - 1){
+            int i = Long.numberOfTrailingZeros(candidates);
+            int tempDegree = Long.bitCount(injNeighbours[i] & uncolored);
+            if (tempDegree > degree){
+                degree = tempDegree;
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected int nextColor(int vertex, int previous, int maxColor){
+        //The colors previous + 1 until maxColor, as bits previous until maxColor - 1
+        long range = (maxColor >= 64 ? -1L : (1L << maxColor) - 1) & (previous >= 64 ? 0L : -1L << previous);
+        long free = range & ~colorRestrictions[vertex];
+        return free == 0 ? 0 : Long.numberOfTrailingZeros(free) + 1;
+    }
+
+    @Override
+    protected void updateRestrictionsInj(int vertex, int c, int depth){
+        color[vertex] = c;
+        uncolored &= ~(1L << vertex);
+        buckets[saturation[vertex]] &= ~(1L << vertex);
+        long colorBit = 1L << (c - 1);
+        long bits = 0;
+        for (long nb = injNeighbours[vertex] & uncolored; nb != 0; nb &= nb - 1){
+            int i = Long.numberOfTrailingZeros(nb);
+            if ((colorRestrictions[i] & colorBit) == 0){
+                colorRestrictions[i] |= colorBit;
+                bits |= 1L << i;
+
+                //Move the vertex to the next bucket
+                int sat = saturation[i]++;
+                buckets[sat] &= ~(1L << i);
+                buckets[sat + 1] |= 1L << i;
+                if (sat + 1 > maxSaturation){
+                    maxSaturation = sat + 1;
+                }
+            }
+        }
+        trail[depth] = bits;
+    }
+
+    @Override
+    protected void resetBitsets(int vertex, int c, int depth){
+        long colorMask = ~(1L << (c - 1));
+        for (long bits = trail[depth]; bits != 0; bits &= bits - 1){
+            int i = Long.numberOfTrailingZeros(bits);
+            colorRestrictions[i] &= colorMask;
+
+            //Move the vertex back to the previous bucket
+            int sat = saturation[i]--;
+            buckets[sat] &= ~(1L << i);
+            buckets[sat - 1] |= 1L << i;
+        }
+        color[vertex] = 0;
+        uncolored |= 1L << vertex;
+        buckets[saturation[vertex]] |= 1L << vertex;
+        if (saturation[vertex] > maxSaturation){
+            maxSaturation = saturation[vertex];
+        }
+    }
+}
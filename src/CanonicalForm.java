@@ -0,0 +1,335 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class that calculates a canonical labelling of a graph: two graphs get the same canonical form if and only if they
+ * are isomorphic. The labelling is found with partition refinement, individualization of vertices and pruning with the
+ * automorphisms found during the search (the same idea as nauty, in its most basic form).
+ * Graphs are given by their neighbours as bitboards: vertex v uses the words v * words until (v + 1) * words.
+ */
+public class CanonicalForm {
+
+    /**
+     * The number of vertices in the graph.
+     */
+    private final int dimension;
+
+    /**
+     * The number of words per vertex in neighbours.
+     */
+    private final int words;
+
+    /**
+     * The neighbours of every vertex in the original graph.
+     */
+    private final long[] neighbours;
+
+    /**
+     * The neighbours of every vertex in the canonically labelled graph.
+     */
+    private long[] canonicalNeighbours;
+
+    /**
+     * The canonical label of every vertex of the original graph.
+     */
+    private int[] labelling;
+
+    public int[] getLabelling() {
+        return labelling;
+    }
+
+    /**
+     * The labelling and graph of the first leaf of the search tree, used to find automorphisms.
+     */
+    private int[] firstLabelling;
+
+    private long[] firstNeighbours;
+
+    /**
+     * The vertices individualized on the path to the first leaf.
+     */
+    private int[] firstPath;
+
+    /**
+     * The vertices individualized on the current path.
+     */
+    private final int[] path;
+
+    /**
+     * The automorphisms found during the search.
+     */
+    private final List<int[]> automorphisms = new ArrayList<>();
+
+    public List<int[]> getAutomorphisms() {
+        return automorphisms;
+    }
+
+    /**
+     * Constructor that calculates the canonical form of a graph.
+     * @param dimension The number of vertices in the graph.
+     * @param words The number of words per vertex in neighbours.
+     * @param neighbours The neighbours of every vertex.
+     */
+    public CanonicalForm(int dimension, int words, long[] neighbours) {
+        this.dimension = dimension;
+        this.words = words;
+        this.neighbours = neighbours;
+        this.path = new int[dimension];
+        search(refine(new int[dimension]), 0);
+    }
+
+    /**
+     * Search the tree of refined partitions for the leaf with the smallest graph.
+     * @param cell The cell of every vertex in the current equitable partition, cells are numbered 0 until k.
+     * @param level The number of individualized vertices.
+     * @return The level the search has to return to when an automorphism is found, -1 otherwise.
+     */
+    private int search(int[] cell, int level) {
+        int cells = numberOfCells(cell);
+        if (cells == dimension) {
+            return leaf(cell, level);
+        }
+
+        //Choose the first smallest cell with more than 1 vertex
+        int[] cellSize = new int[cells];
+        for (int v = 0; v < dimension; v++) {
+            cellSize[cell[v]]++;
+        }
+        int target = -1;
+        for (int c = 0; c < cells; c++) {
+            if (cellSize[c] > 1 && (target == -1 || cellSize[c] < cellSize[target])) {
+                target = c;
+            }
+        }
+
+        List<Integer> explored = new ArrayList<>();
+        for (int w = 0; w < dimension; w++) {
+            if (cell[w] != target || sameOrbit(w, explored, level)) {
+                continue;
+            }
+            path[level] = w;
+            int jump = search(refine(individualize(cell, w)), level + 1);
+            explored.add(w);
+            if (jump != -1 && jump < level) {
+                return jump;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Handle a leaf of the search tree, a discrete partition that gives a labelling of the vertices.
+     * @return The level to return to if the leaf gives an automorphism with the first leaf, -1 otherwise.
+     */
+    private int leaf(int[] cell, int level) {
+        long[] relabelled = relabel(cell);
+        if (firstLabelling == null) {
+            firstLabelling = cell;
+            firstNeighbours = relabelled;
+            firstPath = Arrays.copyOf(path, level);
+            labelling = cell;
+            canonicalNeighbours = relabelled;
+            return -1;
+        }
+
+        if (Arrays.equals(relabelled, firstNeighbours)) {
+            automorphisms.add(automorphism(firstLabelling, cell));
+            int common = 0;
+            while (common < level && common < firstPath.length && path[common] == firstPath[common]) {
+                common++;
+            }
+            return common;
+        }
+
+        int comparison = Arrays.compare(relabelled, canonicalNeighbours);
+        if (comparison == 0) {
+            automorphisms.add(automorphism(labelling, cell));
+        }
+        else if (comparison < 0) {
+            labelling = cell;
+            canonicalNeighbours = relabelled;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the automorphism that maps the vertex with a label in the first labelling to the vertex with the same
+     * label in the second labelling.
+     */
+    private int[] automorphism(int[] first, int[] second) {
+        int[] inverse = new int[dimension];
+        for (int v = 0; v < dimension; v++) {
+            inverse[second[v]] = v;
+        }
+        int[] result = new int[dimension];
+        for (int v = 0; v < dimension; v++) {
+            result[v] = inverse[first[v]];
+        }
+        return result;
+    }
+
+    /**
+     * Check if a vertex is in the same orbit as one of the explored vertices, under the automorphisms that fix the
+     * vertices on the current path.
+     */
+    private boolean sameOrbit(int vertex, List<Integer> explored, int level) {
+        if (explored.isEmpty() || automorphisms.isEmpty()) {
+            return false;
+        }
+        int[] orbit = new int[dimension];
+        for (int v = 0; v < dimension; v++) {
+            orbit[v] = v;
+        }
+        for (int[] automorphism : automorphisms) {
+            boolean fixesPath = true;
+            for (int l = 0; l < level && fixesPath; l++) {
+                fixesPath = automorphism[path[l]] == path[l];
+            }
+            if (fixesPath) {
+                for (int v = 0; v < dimension; v++) {
+                    union(orbit, v, automorphism[v]);
+                }
+            }
+        }
+        int root = find(orbit, vertex);
+        for (int e : explored) {
+            if (find(orbit, e) == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int find(int[] orbit, int v) {
+        while (orbit[v] != v) {
+            orbit[v] = orbit[orbit[v]];
+            v = orbit[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] orbit, int a, int b) {
+        int rootA = find(orbit, a);
+        int rootB = find(orbit, b);
+        if (rootA != rootB) {
+            orbit[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Give the vertex a cell of its own, just before the other vertices of its cell.
+     */
+    private int[] individualize(int[] cell, int vertex) {
+        int[] result = new int[dimension];
+        for (int u = 0; u < dimension; u++) {
+            if (cell[u] > cell[vertex] || (cell[u] == cell[vertex] && u != vertex)) {
+                result[u] = cell[u] + 1;
+            }
+            else {
+                result[u] = cell[u];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Refine the partition until it is equitable: vertices in the same cell have the same number of neighbours in
+     * every cell. Cells are split and ordered by the number of neighbours in every cell, which does not depend on the
+     * labels of the vertices.
+     */
+    private int[] refine(int[] cell) {
+        int cells = numberOfCells(cell);
+        Integer[] order = new Integer[dimension];
+        while (true) {
+            //The key of a vertex: its cell followed by its number of neighbours in every cell
+            int[][] key = new int[dimension][cells + 1];
+            for (int v = 0; v < dimension; v++) {
+                key[v][0] = cell[v];
+                for (int w = 0; w < words; w++) {
+                    for (long nb = neighbours[v * words + w]; nb != 0; nb &= nb - 1) {
+                        key[v][cell[(w << 6) + Long.numberOfTrailingZeros(nb)] + 1]++;
+                    }
+                }
+                order[v] = v;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compare(key[a], key[b]));
+
+            int[] refined = new int[dimension];
+            int newCells = 1;
+            for (int i = 1; i < dimension; i++) {
+                if (!Arrays.equals(key[order[i]], key[order[i - 1]])) {
+                    newCells++;
+                }
+                refined[order[i]] = newCells - 1;
+            }
+            if (newCells == cells) {
+                return cell;
+            }
+            cell = refined;
+            cells = newCells;
+        }
+    }
+
+    private int numberOfCells(int[] cell) {
+        int cells = 0;
+        for (int c : cell) {
+            cells = Math.max(cells, c + 1);
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the neighbours of every vertex when vertex v gets label cell[v].
+     */
+    private long[] relabel(int[] cell) {
+        long[] result = new long[dimension * words];
+        for (int v = 0; v < dimension; v++) {
+            for (int w = 0; w < words; w++) {
+                for (long nb = neighbours[v * words + w]; nb != 0; nb &= nb - 1) {
+                    int u = cell[(w << 6) + Long.numberOfTrailingZeros(nb)];
+                    result[cell[v] * words + (u >>> 6)] |= 1L << u;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the coloring of the canonically labelled graph that corresponds to a coloring of the original graph.
+     */
+    public int[] toCanonical(int[] coloring) {
+        int[] result = new int[dimension];
+        for (int v = 0; v < dimension; v++) {
+            result[labelling[v]] = coloring[v];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the coloring of the original graph that corresponds to a coloring of the canonically labelled graph.
+     */
+    public int[] fromCanonical(int[] coloring) {
+        int[] result = new int[dimension];
+        for (int v = 0; v < dimension; v++) {
+            result[v] = coloring[labelling[v]];
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CanonicalForm)) {
+            return false;
+        }
+        CanonicalForm other = (CanonicalForm) o;
+        return dimension == other.dimension && Arrays.equals(canonicalNeighbours, other.canonicalNeighbours);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * dimension + Arrays.hashCode(canonicalNeighbours);
+    }
+}
@@ -0,0 +1,312 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Class that keeps the progress of a run in an append-only checkpoint file, so a run that stops can be resumed.
+ * The file starts with a header (magic number and version), followed by blocks. Every block contains the amount of
+ * graphs processed since the previous block, the amount of them that were not resolved (time or node limit) and that
+ * were decided by the filters without calculating the injective chromatic number, the changes to the table of results
+ * and the filtered graphs found, and is written as: length of the data, data, CRC32 of the data. A block that is not
+ * complete or has a wrong checksum (the run stopped while writing it) is ignored and cut off when resuming.
+ */
+public class CheckpointStore implements Closeable {
+
+    /**
+     * The first bytes of a checkpoint file, "INJC".
+     */
+    private static final int MAGIC = 0x494E4A43;
+
+    private static final int VERSION = 4;
+
+    private static final int HEADER_LENGTH = 8;
+
+    /**
+     * A filtered graph stored in the checkpoint file.
+     */
+    public static class Hit {
+        private final String graph6;
+        private final int maxDegree;
+        private final int injChromaticNumber;
+        private final int[] coloring;
+
+        public Hit(String graph6, int maxDegree, int injChromaticNumber, int[] coloring) {
+            this.graph6 = graph6;
+            this.maxDegree = maxDegree;
+            this.injChromaticNumber = injChromaticNumber;
+            this.coloring = coloring;
+        }
+
+        public String getGraph6() {
+            return graph6;
+        }
+
+        public int getMaxDegree() {
+            return maxDegree;
+        }
+
+        public int getInjChromaticNumber() {
+            return injChromaticNumber;
+        }
+
+        public int[] getColoring() {
+            return coloring;
+        }
+    }
+
+    /**
+     * The stream the blocks are appended to.
+     */
+    private final FileOutputStream output;
+
+    /**
+     * The amount of graphs after which a block is written.
+     */
+    private final int interval;
+
+    /**
+     * The amount of graphs processed in earlier runs, read from the file when resuming.
+     */
+    private long recoveredGraphs = 0;
+
+    public long getRecoveredGraphs() {
+        return recoveredGraphs;
+    }
+
+    /**
+     * The table of results of earlier runs, read from the file when resuming.
+     */
+    private final ResultTable recoveredTable = new ResultTable();
+
+    public ResultTable getRecoveredTable() {
+        return recoveredTable;
+    }
+
+    /**
+     * The filtered graphs of earlier runs, in the order they were found.
+     */
+    private final List<Hit> recoveredHits = new ArrayList<>();
+
+    public List<Hit> getRecoveredHits() {
+        return recoveredHits;
+    }
+
+    /**
+     * The changes since the last block that was written.
+     */
+    private long pendingGraphs = 0;
+
+    private ResultTable pendingTable = new ResultTable();
+
+    private final List<Hit> pendingHits = new ArrayList<>();
+
+    /**
+     * Constructor that opens a checkpoint file.
+     * @param fileName The name/path of the checkpoint file.
+     * @param resume True if the progress in the file has to be read, false if the file has to be started over.
+     * @param interval The amount of graphs after which the progress is written and synced to disk.
+     */
+    public CheckpointStore(String fileName, boolean resume, int interval) throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The checkpoint interval should be at least 1");
+        }
+        this.interval = interval;
+        File file = new File(fileName);
+
+        if (resume && file.exists()) {
+            long validLength = readBlocks(Files.readAllBytes(file.toPath()));
+            //Cut off a block that was not completely written
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+            output = new FileOutputStream(file, true);
+        }
+        else {
+            output = new FileOutputStream(file, false);
+            DataOutputStream header = new DataOutputStream(output);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.flush();
+            output.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Read all complete blocks of the file and add them to the recovered progress.
+     * @return The length of the file up to the end of the last complete block.
+     */
+    private long readBlocks(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < HEADER_LENGTH || input.readInt() != MAGIC) {
+            throw new IOException("Not a valid checkpoint file");
+        }
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("The checkpoint file has version " + version + ", only version " + VERSION + " can be resumed");
+        }
+        long validLength = HEADER_LENGTH;
+        while (validLength + 4 <= bytes.length) {
+            int length = input.readInt();
+            if (length < 0 || validLength + 4 + length + 4 > bytes.length) {
+                break;
+            }
+            byte[] data = new byte[length];
+            input.readFully(data);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if ((int) crc.getValue() != input.readInt()) {
+                break;
+            }
+            readBlock(new DataInputStream(new ByteArrayInputStream(data)));
+            validLength += 4 + length + 4;
+        }
+        return validLength;
+    }
+
+    private void readBlock(DataInputStream data) throws IOException {
+        recoveredGraphs += data.readLong();
+        recoveredTable.addUnresolved(data.readInt());
+        recoveredTable.addSkipped(data.readInt());
+        int entries = data.readInt();
+        for (int i = 0; i < entries; i++) {
+            recoveredTable.add(data.readInt(), data.readInt(), data.readInt());
+        }
+        int hits = data.readInt();
+        for (int i = 0; i < hits; i++) {
+            //The graph6 notation of a big graph is longer than writeUTF() allows, so it is stored with an int length
+            byte[] graph6 = new byte[data.readInt()];
+            data.readFully(graph6);
+            int maxDegree = data.readInt();
+            int injChromaticNumber = data.readInt();
+            int[] coloring = new int[data.readInt()];
+            for (int v = 0; v < coloring.length; v++) {
+                coloring[v] = data.readInt();
+            }
+            recoveredHits.add(new Hit(new String(graph6, StandardCharsets.US_ASCII), maxDegree, injChromaticNumber, coloring));
+        }
+    }
+
+    /**
+     * Add a filtered graph, it is written with the next block.
+     */
+    public void addHit(Hit hit) {
+        pendingHits.add(hit);
+    }
+
+    /**
+     * Add processed graphs, a block is written when enough graphs are processed since the last one.
+     * @param table The results of the processed graphs.
+     */
+    public void addGraphs(ResultTable table) throws IOException {
+        pendingTable.merge(table);
+        pendingGraphs += table.getAmountOfGraphs() + table.getUnresolvedGraphs() + table.getSkippedGraphs();
+        if (pendingGraphs >= interval) {
+            flush();
+        }
+    }
+
+    /**
+     * Add one processed graph, a block is written when enough graphs are processed since the last one.
+     */
+    public void addGraph(int maxDeg, int injNum) throws IOException {
+        pendingTable.add(maxDeg, injNum);
+        pendingGraphs++;
+        if (pendingGraphs >= interval) {
+            flush();
+        }
+    }
+
+    /**
+     * Add one processed graph that was not resolved (time or node limit), it is not added to the table.
+     */
+    public void addUnresolved() throws IOException {
+        pendingTable.addUnresolved(1);
+        pendingGraphs++;
+        if (pendingGraphs >= interval) {
+            flush();
+        }
+    }
+
+    /**
+     * Add one processed graph that was decided by the filters without calculating its injective chromatic number, it
+     * is not added to the table.
+     */
+    public void addSkipped() throws IOException {
+        pendingTable.addSkipped(1);
+        pendingGraphs++;
+        if (pendingGraphs >= interval) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the changes since the last block as a new block and sync the file to disk.
+     */
+    public void flush() throws IOException {
+        if (pendingGraphs == 0 && pendingHits.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeLong(pendingGraphs);
+        //A block holds the graphs since the last block, so its counts fit in an int
+        data.writeInt((int) pendingTable.getUnresolvedGraphs());
+        data.writeInt((int) pendingTable.getSkippedGraphs());
+        int cells = 0;
+        for (int k = 0; k <= pendingTable.getMaximumInjFound(); k++) {
+            for (int d = 0; d <= pendingTable.getMaximumDegreeFound(); d++) {
+                if (pendingTable.getCount(d, k) != 0) {
+                    cells++;
+                }
+            }
+        }
+        data.writeInt(cells);
+        for (int k = 0; k <= pendingTable.getMaximumInjFound(); k++) {
+            for (int d = 0; d <= pendingTable.getMaximumDegreeFound(); d++) {
+                long count = pendingTable.getCount(d, k);
+                if (count != 0) {
+                    data.writeInt(d);
+                    data.writeInt(k);
+                    data.writeInt((int) count);
+                }
+            }
+        }
+        data.writeInt(pendingHits.size());
+        for (Hit hit : pendingHits) {
+            byte[] graph6 = hit.graph6.getBytes(StandardCharsets.US_ASCII);
+            data.writeInt(graph6.length);
+            data.write(graph6);
+            data.writeInt(hit.maxDegree);
+            data.writeInt(hit.injChromaticNumber);
+            data.writeInt(hit.coloring.length);
+            for (int c : hit.coloring) {
+                data.writeInt(c);
+            }
+        }
+        data.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        DataOutputStream block = new DataOutputStream(new BufferedOutputStream(output));
+        block.writeInt(bytes.size());
+        bytes.writeTo(block);
+        block.writeInt((int) crc.getValue());
+        block.flush();
+        output.getChannel().force(false);
+
+        pendingGraphs = 0;
+        pendingTable = new ResultTable();
+        pendingHits.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        output.close();
+    }
+}
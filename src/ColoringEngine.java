@@ -0,0 +1,585 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that implements the backtracking search for an injective coloring on bitboards.
+ * The vertices are stored as bits in words of type long, BTA chooses the implementation depending on the dimension.
+ */
+abstract class ColoringEngine {
+
+    /**
+     * The number of vertices in the graph.
+     */
+    protected final int dimension;
+
+    /**
+     * The coloring used when running the algorithm, this is not the final coloring!
+     */
+    protected final int[] color;
+
+    public int[] getColor(){
+        return color;
+    }
+
+    /**
+     * The coloring that is used for the smallest injective chromatic number.
+     */
+    protected final int[] finalColoring;
+
+    public int[] getFinalColoring(){
+        return finalColoring;
+    }
+
+    /**
+     * The injective chromatic number of the graph, initialized at infinity.
+     */
+    protected int injChromaticNum = (int) Double.POSITIVE_INFINITY;
+
+    public int getInjChromaticNum(){
+        return injChromaticNum;
+    }
+
+    /**
+     * A lower bound for the injective chromatic number, the search stops when a coloring with this amount of colors
+     * is found.
+     */
+    protected int lowerBound = 1;
+
+    public void setLowerBound(int lowerBound){
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * Start from a known coloring, the backtracking then only looks for colorings with less colors.
+     * @param numOfCol The number of colors the coloring uses.
+     * @param coloring A complete injective coloring of the graph.
+     */
+    public void setUpperBound(int numOfCol, int[] coloring){
+        System.arraycopy(coloring, 0, finalColoring, 0, dimension);
+        injChromaticNum = numOfCol;
+    }
+
+    /**
+     * The maximum amount of search nodes, the search stops when it is reached.
+     */
+    private long nodeLimit = Long.MAX_VALUE;
+
+    /**
+     * The value of System.nanoTime() at which the search stops, only used if timed is true.
+     */
+    private long deadline;
+
+    private boolean timed = false;
+
+    /**
+     * True if the search was stopped by the node limit or the deadline, the best coloring is then not always optimal.
+     */
+    private boolean aborted = false;
+
+    public boolean isAborted(){
+        return aborted;
+    }
+
+    /**
+     * Limit the search, the best coloring found so far is kept when a limit is reached.
+     * @param nodeLimit The maximum amount of search nodes, 0 for no limit.
+     * @param deadline The value of System.nanoTime() at which the search stops.
+     * @param timed True if the deadline has to be used.
+     */
+    public void setBudget(long nodeLimit, long deadline, boolean timed){
+        this.nodeLimit = nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE;
+        this.deadline = deadline;
+        this.timed = timed;
+    }
+
+    /**
+     * The best coloring shared with the other engines searching the same graph in parallel, null if this engine
+     * searches alone.
+     */
+    private SharedIncumbent shared = null;
+
+    /**
+     * Search together with other engines: the best coloring and the limits are shared.
+     * @param shared The best coloring of all engines, its amount of colors is used as the bound of this engine.
+     */
+    void setShared(SharedIncumbent shared){
+        this.shared = shared;
+        this.injChromaticNum = shared.getBound();
+    }
+
+    /**
+     * The statistics of the search, null if they are not kept.
+     */
+    private SearchStats stats = null;
+
+    /**
+     * The value of System.nanoTime() when the calculation started, used for the times in the statistics.
+     */
+    private long startNanos;
+
+    /**
+     * Keep the statistics of the search.
+     * @param stats The statistics the counters are added to.
+     * @param startNanos The value of System.nanoTime() when the calculation started.
+     */
+    public void setStats(SearchStats stats, long startNanos){
+        this.stats = stats;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * The counter the search nodes are added to every 1024 nodes, for the progress of a run, null if they are not
+     * counted.
+     */
+    private LongAdder nodeCounter = null;
+
+    public void setNodeCounter(LongAdder nodeCounter){
+        this.nodeCounter = nodeCounter;
+    }
+
+    /**
+     * The automorphisms of the graph used to break symmetries (at most 64), null if symmetries are not broken.
+     */
+    private int[][] automorphisms = null;
+
+    /**
+     * For every automorphism, the permutation of the colors that goes with it: a precolored vertex with color c is
+     * mapped onto a precolored vertex with color colorMaps[i][c]. The colors that are not used by the precolored
+     * vertices are not permuted.
+     */
+    private int[][] colorMaps;
+
+    /**
+     * For every vertex, the automorphisms that map it to itself, as a bitmask over the automorphisms.
+     */
+    private long[] fixingAutomorphisms;
+
+    /**
+     * For every color, the automorphisms whose color permutation maps it to itself, as a bitmask.
+     */
+    private long[] fixingColors;
+
+    /**
+     * The automorphisms that keep the partial coloring at every depth of the backtracking, as a bitmask: the
+     * automorphisms that keep the precoloring and fix every vertex colored by the backtracking and its color.
+     */
+    private long[] stackAutomorphisms;
+
+    /**
+     * For every vertex and color, the amount of times the color is forbidden for the vertex by symmetry, vertex v
+     * uses the entries v * (dimension + 1) until (v + 1) * (dimension + 1).
+     */
+    private int[] forbidden;
+
+    /**
+     * The entries of forbidden that were raised, in order, and the amount of them.
+     */
+    private int[] forbiddenTrail;
+
+    private int forbiddenSize = 0;
+
+    /**
+     * The size of the forbidden trail before every depth of the backtracking forbade colors.
+     */
+    private int[] stackForbidden;
+
+    /**
+     * Scratch space to calculate the orbit of a (vertex, color) pair, the pairs are stored like in forbidden.
+     */
+    private int[] orbit;
+
+    private boolean[] inOrbit;
+
+    /**
+     * Break the symmetries of the graph during the search (orbital branching). An automorphism of the graph that
+     * keeps the partial coloring, together with the permutation of the colors it causes, maps colorings onto
+     * colorings with the same amount of colors. When the search is done with the subtree where a vertex has a certain
+     * color, no (vertex, color) pair in the orbit of that pair is needed in the remaining subtrees: such a coloring is
+     * mapped onto a coloring that was already searched. The injective chromatic number found stays the same.
+     * @param automorphisms Automorphisms of the graph, as permutations of the vertices. The identity and all but the
+     *                      first 64 others are ignored.
+     */
+    public void setAutomorphisms(List<int[]> automorphisms){
+        List<int[]> used = new ArrayList<>();
+        for (int[] automorphism : automorphisms){
+            boolean identity = true;
+            for (int v = 0; v < dimension && identity; v++){
+                identity = automorphism[v] == v;
+            }
+            if (!identity && used.size() < 64){
+                used.add(automorphism);
+            }
+        }
+        if (used.isEmpty()){
+            this.automorphisms = null;
+            return;
+        }
+        this.automorphisms = used.toArray(new int[0][]);
+        colorMaps = new int[this.automorphisms.length][dimension + 1];
+        fixingAutomorphisms = new long[dimension];
+        for (int i = 0; i < this.automorphisms.length; i++){
+            for (int v = 0; v < dimension; v++){
+                if (this.automorphisms[i][v] == v){
+                    fixingAutomorphisms[v] |= 1L << i;
+                }
+            }
+        }
+        fixingColors = new long[dimension + 1];
+        stackAutomorphisms = new long[dimension + 1];
+        forbidden = new int[dimension * (dimension + 1)];
+        forbiddenTrail = new int[dimension];
+        stackForbidden = new int[dimension + 1];
+        orbit = new int[dimension];
+        inOrbit = new boolean[dimension * (dimension + 1)];
+    }
+
+    /**
+     * The vertex that is colored at every depth of the backtracking.
+     */
+    private final int[] stackVertex;
+
+    /**
+     * The number of colors used before coloring the vertex at every depth of the backtracking.
+     */
+    private final int[] stackNumOfCol;
+
+    /**
+     * The color the vertex at every depth of the backtracking currently has, 0 if no color was tried yet.
+     */
+    private final int[] stackColor;
+
+    /**
+     * Constructor for a new engine. Everything the backtracking needs is allocated here, the search itself does not
+     * allocate anything.
+     * @param dimension The number of vertices in the graph.
+     */
+    protected ColoringEngine(int dimension){
+        this.dimension = dimension;
+        this.color = new int[dimension];
+        this.finalColoring = new int[dimension];
+        this.stackVertex = new int[dimension + 1];
+        this.stackNumOfCol = new int[dimension + 1];
+        this.stackColor = new int[dimension + 1];
+    }
+
+    /**
+     * Returns the engine that fits the dimension of the graph best.
+     * @param dimension The number of vertices in the graph.
+     * @param words The number of words used per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours, vertex v uses the words v * words until (v + 1) * words.
+     * @return A single word engine if the graph has at most 64 vertices, a multi word engine otherwise.
+     */
+    static ColoringEngine forGraph(int dimension, int words, long[] injNeighbours){
+        if (dimension <= 64){
+            return new BitboardEngine(dimension, injNeighbours);
+        }
+        return new MultiWordEngine(dimension, words, injNeighbours);
+    }
+
+    /**
+     * Give a vertex a color before the backtracking starts and update the restrictions of its injective neighbours.
+     * The last entry of the trail is used, it is never reset.
+     * @param vertex The vertex we color.
+     * @param c The color we give to the vertex.
+     */
+    public void precolor(int vertex, int c){
+        updateRestrictionsInj(vertex, c, dimension);
+    }
+
+    /**
+     * Color the rest of the graph using backtracking. The backtracking is iterative, every depth has its own entry in
+     * the stacks and in the trail of the engine.
+     * @param numOfCol The number of colors used by the precolored vertices.
+     * @param n The number of precolored vertices.
+     */
+    public void search(int numOfCol, int n){
+        search(numOfCol, n, -1, null);
+    }
+
+    /**
+     * Split the search in subproblems: the backtracking does not go deeper than splitDepth, every partial coloring
+     * of splitDepth vertices that can still give a better coloring is a subproblem. Colorings of the whole graph that
+     * are found before splitDepth are saved as usual.
+     * @param numOfCol The number of colors used by the precolored vertices.
+     * @param n The number of precolored vertices.
+     * @param splitDepth The amount of vertices colored in every subproblem.
+     * @param subproblems The list the subproblems are added to, as {number of colors, vertex, color, vertex, ...}.
+     */
+    public void split(int numOfCol, int n, int splitDepth, List<int[]> subproblems){
+        search(numOfCol, n, splitDepth, subproblems);
+    }
+
+    private void search(int numOfCol, int n, int splitDepth, List<int[]> subproblems){
+        int depth = 0;
+        stackVertex[0] = calcNextVertex();
+        stackNumOfCol[0] = numOfCol;
+        stackColor[0] = 0;
+        if (automorphisms != null){
+            clearForbidden(0);
+            stackAutomorphisms[0] = keptAutomorphisms();
+            stackForbidden[0] = 0;
+        }
+
+        //Counters for the statistics, they are kept in local variables so they cost (almost) nothing
+        long nodes = 0;
+        long backtracks = 0;
+        long prunes = 0;
+        int maxDepth = 0;
+        long solutions = 0;
+
+        while (depth >= 0){
+            int cols = stackNumOfCol[depth];
+            if (n + depth == dimension){
+                if (cols <= injChromaticNum){
+                    saveColoring(cols);
+                    solutions++;
+                    if (injChromaticNum <= lowerBound){
+                        break; //The coloring is optimal
+                    }
+                }
+            }
+            else if (cols >= injChromaticNum){
+                prunes++;
+            }
+            else if (depth == splitDepth){
+                int[] subproblem = new int[2 * depth + 1];
+                subproblem[0] = cols;
+                for (int d = 0; d < depth; d++){
+                    subproblem[2 * d + 1] = stackVertex[d];
+                    subproblem[2 * d + 2] = stackColor[d];
+                }
+                subproblems.add(subproblem);
+            }
+            else {
+                //A new color is only tried if it still improves the best coloring (Basic Pruning)
+                int maxColor = cols + 1 < injChromaticNum ? cols + 1 : cols;
+                if (maxColor == cols && stackColor[depth] == 0){
+                    prunes++;
+                }
+                int vertex = stackVertex[depth];
+                if (automorphisms != null && stackColor[depth] != 0 && stackAutomorphisms[depth] != 0){
+                    forbidInOrbit(vertex, stackColor[depth], stackAutomorphisms[depth]);
+                }
+                int c = nextColor(vertex, stackColor[depth], maxColor);
+                while (c != 0 && forbiddenSize != 0 && forbidden[vertex * (dimension + 1) + c] != 0){
+                    c = nextColor(vertex, c, maxColor);
+                }
+                if (c != 0){
+                    stackColor[depth] = c;
+                    updateRestrictionsInj(vertex, c, depth);
+                    depth++;
+                    nodes++;
+                    if (depth > maxDepth){
+                        maxDepth = depth;
+                    }
+                    if (nodes >= nodeLimit){
+                        aborted = true;
+                        break;
+                    }
+                    if ((nodes & 0x3FF) == 0){
+                        if (nodeCounter != null){
+                            nodeCounter.add(0x400);
+                        }
+                        if (poll()){
+                            break;
+                        }
+                    }
+                    stackVertex[depth] = calcNextVertex();
+                    stackNumOfCol[depth] = Math.max(c, cols);
+                    stackColor[depth] = 0;
+                    if (automorphisms != null){
+                        stackAutomorphisms[depth] = stackAutomorphisms[depth - 1] & fixingAutomorphisms[vertex] & fixingColors[c];
+                        stackForbidden[depth] = forbiddenSize;
+                    }
+                    continue;
+                }
+            }
+
+            //Backtracking
+            if (automorphisms != null){
+                clearForbidden(stackForbidden[depth]);
+            }
+            depth--;
+            backtracks++;
+            if (depth >= 0){
+                resetBitsets(stackVertex[depth], stackColor[depth], depth);
+            }
+        }
+
+        if (stats != null){
+            stats.addSearch(nodes, backtracks, prunes, maxDepth, solutions);
+        }
+        if (nodeCounter != null){
+            nodeCounter.add(nodes & 0x3FF);
+        }
+    }
+
+    /**
+     * Returns the automorphisms that keep the precoloring: every precolored vertex is mapped onto a precolored
+     * vertex, and vertices with the same color onto vertices with the same color. The color permutation of every
+     * such automorphism is stored in colorMaps.
+     */
+    private long keptAutomorphisms(){
+        long kept = 0;
+        for (int i = 0; i < automorphisms.length; i++){
+            int[] colorMap = colorMaps[i];
+            Arrays.fill(colorMap, 0);
+            boolean keeps = true;
+            for (int v = 0; v < dimension && keeps; v++){
+                if (color[v] != 0){
+                    int image = color[automorphisms[i][v]];
+                    keeps = image != 0 && (colorMap[color[v]] == 0 || colorMap[color[v]] == image);
+                    colorMap[color[v]] = image;
+                }
+            }
+            //The colors of the precolored vertices have to be permuted, the other colors stay the same
+            boolean[] images = new boolean[dimension + 1];
+            for (int c = 1; c <= dimension && keeps; c++){
+                if (colorMap[c] == 0){
+                    colorMap[c] = c;
+                }
+                keeps = !images[colorMap[c]];
+                images[colorMap[c]] = true;
+            }
+            if (keeps){
+                kept |= 1L << i;
+            }
+        }
+        Arrays.fill(fixingColors, 0);
+        for (long k = kept; k != 0; k &= k - 1){
+            int i = Long.numberOfTrailingZeros(k);
+            for (int c = 1; c <= dimension; c++){
+                if (colorMaps[i][c] == c){
+                    fixingColors[c] |= 1L << i;
+                }
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Forbid the (vertex, color) pairs in the orbit of a pair, after the subtree where the vertex has that color is
+     * searched. The automorphisms keep the partial coloring, so every vertex in the orbit is uncolored.
+     * @param vertex The vertex at the current depth.
+     * @param c The color the vertex had in the searched subtree.
+     * @param kept The automorphisms that keep the partial coloring, as a bitmask.
+     */
+    private void forbidInOrbit(int vertex, int c, long kept){
+        int first = vertex * (dimension + 1) + c;
+        int size = 1;
+        orbit[0] = first;
+        inOrbit[first] = true;
+        for (int i = 0; i < size; i++){
+            int u = orbit[i] / (dimension + 1);
+            int d = orbit[i] % (dimension + 1);
+            for (long k = kept; k != 0; k &= k - 1){
+                int a = Long.numberOfTrailingZeros(k);
+                int image = automorphisms[a][u] * (dimension + 1) + colorMaps[a][d];
+                if (!inOrbit[image]){
+                    if (size == orbit.length){
+                        orbit = Arrays.copyOf(orbit, 2 * orbit.length);
+                    }
+                    inOrbit[image] = true;
+                    orbit[size++] = image;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++){
+            int entry = orbit[i];
+            inOrbit[entry] = false;
+            if (entry != first){
+                if (forbiddenSize == forbiddenTrail.length){
+                    forbiddenTrail = Arrays.copyOf(forbiddenTrail, 2 * forbiddenTrail.length);
+                }
+                forbidden[entry]++;
+                forbiddenTrail[forbiddenSize++] = entry;
+            }
+        }
+    }
+
+    /**
+     * Allow the colors forbidden by symmetry again, until the forbidden trail has the given size.
+     */
+    private void clearForbidden(int size){
+        while (forbiddenSize > size){
+            forbidden[forbiddenTrail[--forbiddenSize]]--;
+        }
+    }
+
+    /**
+     * Check the clock and the shared best coloring, this is only done every 1024 search nodes.
+     * @return True if the search has to stop: a limit is reached or the shared best coloring is optimal.
+     */
+    private boolean poll(){
+        if (shared != null){
+            int bound = shared.getBound();
+            if (bound < injChromaticNum){
+                injChromaticNum = bound;
+            }
+            if (injChromaticNum <= lowerBound){
+                return true;
+            }
+            if (shared.addNodes(0x400)){
+                aborted = true;
+                return true;
+            }
+        }
+        if (timed && System.nanoTime() - deadline > 0){
+            aborted = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculate which vertex should be chosen next for the backtracking algorithm.
+     * The vertex with the biggest saturation degree (least amount of colors possible) is returned.
+     * @return The vertex that should be chosen next, -1 if every vertex is colored.
+     */
+    protected abstract int calcNextVertex();
+
+    /**
+     * Returns the smallest color bigger than previous that the vertex is still allowed to get.
+     * @param vertex The vertex we want to color.
+     * @param previous The color the vertex had before, 0 if it had none.
+     * @param maxColor The biggest color that can be returned.
+     * @return The next allowed color, 0 if there is none.
+     */
+    protected abstract int nextColor(int vertex, int previous, int maxColor);
+
+    /**
+     * Color a vertex and update the restrictions of its uncolored injective neighbours. The changed restrictions are
+     * stored in the trail at the given depth.
+     * @param vertex A vertex that we color.
+     * @param c The color we give to the vertex.
+     * @param depth The entry of the trail used.
+     */
+    protected abstract void updateRestrictionsInj(int vertex, int c, int depth);
+
+    /**
+     * Uncolor a vertex and reset the restrictions stored in the trail at the given depth. (backtracking)
+     * @param vertex The vertex we uncolor.
+     * @param c The color the vertex had.
+     * @param depth The entry of the trail used when coloring the vertex.
+     */
+    protected abstract void resetBitsets(int vertex, int c, int depth);
+
+    /**
+     * Store the current coloring as the best coloring found so far.
+     * @param numOfCol The number of colors used by the current coloring.
+     */
+    protected void saveColoring(int numOfCol){
+        System.arraycopy(color, 0, finalColoring, 0, dimension);
+        injChromaticNum = numOfCol;
+        if (shared != null){
+            shared.offer(numOfCol, color);
+        }
+        if (stats != null){
+            stats.setOptimalSolutionNanos(System.nanoTime() - startNanos);
+        }
+    }
+}
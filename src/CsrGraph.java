@@ -0,0 +1,125 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * A graph stored as compressed adjacency lists (CSR): the neighbours of vertex v are targets[offsets[v]] until
+ * targets[offsets[v + 1]], sorted. The memory used grows with the amount of edges instead of with the square of the
+ * amount of vertices, so big sparse graphs can be read without building an adjacency matrix.
+ */
+public class CsrGraph {
+
+    /**
+     * The number of vertices in the graph.
+     */
+    private final int size;
+
+    /**
+     * The start of the neighbours of every vertex in targets, size + 1 long.
+     */
+    private final int[] offsets;
+
+    /**
+     * The neighbours of all vertices, every edge is in it twice.
+     */
+    private final int[] targets;
+
+    public int getSize(){
+        return size;
+    }
+
+    public int[] getOffsets(){
+        return offsets;
+    }
+
+    public int[] getTargets(){
+        return targets;
+    }
+
+    public int getDegree(int v){
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int getEdgeCount(){
+        return targets.length / 2;
+    }
+
+    /**
+     * Constructor for a graph given as compressed adjacency lists.
+     * @param size The number of vertices in the graph.
+     * @param offsets The start of the neighbours of every vertex in targets, size + 1 long.
+     * @param targets The sorted neighbours of every vertex, without loops and without doubles.
+     */
+    public CsrGraph(int size, int[] offsets, int[] targets){
+        this.size = size;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Returns the graph with the given edges. Loops and edges that are given more than once are left out.
+     * @param size The number of vertices in the graph.
+     * @param edges The edges, edge i is {edges[2 * i], edges[2 * i + 1]}.
+     * @param edgeCount The number of edges.
+     */
+    public static CsrGraph fromEdges(int size, int[] edges, int edgeCount){
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < edgeCount; i++){
+            int u = edges[2 * i];
+            int v = edges[2 * i + 1];
+            if (u < 0 || v < 0 || u >= size || v >= size){
+                throw new RuntimeException("The edge {" + u + ", " + v + "} is not in a graph with " + size + " vertices");
+            }
+            if (u != v){
+                offsets[u + 1]++;
+                offsets[v + 1]++;
+            }
+        }
+        for (int v = 0; v < size; v++){
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] targets = new int[offsets[size]];
+        int[] next = Arrays.copyOf(offsets, size);
+        for (int i = 0; i < edgeCount; i++){
+            int u = edges[2 * i];
+            int v = edges[2 * i + 1];
+            if (u != v){
+                targets[next[u]++] = v;
+                targets[next[v]++] = u;
+            }
+        }
+
+        //Sort the neighbours of every vertex and remove the doubles, the lists are moved to the front
+        int length = 0;
+        for (int v = 0; v < size; v++){
+            int start = offsets[v];
+            int end = offsets[v + 1];
+            Arrays.sort(targets, start, end);
+            offsets[v] = length;
+            for (int i = start; i < end; i++){
+                if (i == start || targets[i] != targets[i - 1]){
+                    targets[length++] = targets[i];
+                }
+            }
+        }
+        offsets[size] = length;
+        return new CsrGraph(size, offsets, length == targets.length ? targets : Arrays.copyOf(targets, length));
+    }
+
+    /**
+     * Returns the neighbours of every vertex as bitboards: vertex v uses the words v * Graph6.words(size) until
+     * (v + 1) * Graph6.words(size).
+     */
+    public long[] toBitboards(){
+        int words = Graph6.words(size);
+        long[] neighbours = new long[size * words];
+        for (int v = 0; v < size; v++){
+            for (int i = offsets[v]; i < offsets[v + 1]; i++){
+                int u = targets[i];
+                neighbours[v * words + (u >>> 6)] |= 1L << u;
+            }
+        }
+        return neighbours;
+    }
+}
@@ -0,0 +1,181 @@
+package src;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class that reads and writes graphs in the DIMACS format (as used by the graph coloring benchmarks) and in the plain
+ * edge list format. A DIMACS graph starts with a line "p edge n m" (or "p col n m") and has a line "e u v" for every
+ * edge, the vertices are numbered from 1 until n. Lines starting with c, d, v, x or n are ignored. A line with only two
+ * numbers "u v" is an edge as well, so a plain edge list can be read too: without a "p" line the graph has as many
+ * vertices as the biggest number. The edges are read into compressed adjacency lists, no adjacency matrix is built.
+ */
+public class Dimacs {
+
+    /**
+     * Returns true if the given line is the "p" line that starts a graph.
+     */
+    public static boolean isHeader(byte[] line) {
+        return type(line) == 'p';
+    }
+
+    /**
+     * Returns true if the given line is an edge, "e u v" or "u v".
+     */
+    public static boolean isEdge(byte[] line) {
+        byte type = type(line);
+        return type == 'e' || (type >= '0' && type <= '9');
+    }
+
+    /**
+     * Returns the first character of a line that is not a space, 0 for an empty line.
+     */
+    private static byte type(byte[] line) {
+        int index = 0;
+        while (index < line.length && isSpace(line[index])) {
+            index++;
+        }
+        return index < line.length ? line[index] : 0;
+    }
+
+    /**
+     * Decode one graph in DIMACS format, line by line.
+     * @param buffer The buffer containing the graph.
+     * @param offset The index of the first character of the graph.
+     * @param length The number of characters of the graph, it has at most one "p" line.
+     */
+    public static CsrGraph decode(ByteBuffer buffer, int offset, int length) {
+        int size = -1;
+        int maxVertex = 0;
+        int[] edges = new int[64];
+        int edgeCount = 0;
+        long[] numbers = new long[3];
+
+        int end = offset + length;
+        for (int start = offset; start < end; ) {
+            int lineEnd = start;
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int index = start;
+            while (index < lineEnd && isSpace(buffer.get(index))) {
+                index++;
+            }
+            if (index < lineEnd) {
+                byte type = buffer.get(index);
+                if (type == 'p') {
+                    if (size != -1) {
+                        throw new RuntimeException("Invalid DIMACS graph: more than one p line");
+                    }
+                    //p edge n m
+                    int word = index + 1;
+                    while (word < lineEnd && isSpace(buffer.get(word))) {
+                        word++;
+                    }
+                    int wordEnd = word;
+                    while (wordEnd < lineEnd && !isSpace(buffer.get(wordEnd))) {
+                        wordEnd++;
+                    }
+                    String format = line(buffer, word, wordEnd);
+                    if (!format.equals("edge") && !format.equals("col")) {
+                        throw new RuntimeException("Input file is not valid");
+                    }
+                    if (readNumbers(buffer, wordEnd, lineEnd, numbers) < 1 || numbers[0] > Integer.MAX_VALUE) {
+                        throw new RuntimeException("Invalid DIMACS graph: " + line(buffer, start, lineEnd));
+                    }
+                    size = (int) numbers[0];
+                }
+                else if (type == 'e' || (type >= '0' && type <= '9')) {
+                    int first = type == 'e' ? index + 1 : index;
+                    if (readNumbers(buffer, first, lineEnd, numbers) != 2 || numbers[0] < 1 || numbers[1] < 1
+                            || numbers[0] > Integer.MAX_VALUE || numbers[1] > Integer.MAX_VALUE) {
+                        throw new RuntimeException("Invalid DIMACS edge: " + line(buffer, start, lineEnd));
+                    }
+                    if (2 * edgeCount + 2 > edges.length) {
+                        edges = Arrays.copyOf(edges, edges.length * 2);
+                    }
+                    edges[2 * edgeCount] = (int) numbers[0] - 1;
+                    edges[2 * edgeCount + 1] = (int) numbers[1] - 1;
+                    edgeCount++;
+                    maxVertex = (int) Math.max(maxVertex, Math.max(numbers[0], numbers[1]));
+                }
+                else if (type != 'c' && type != 'd' && type != 'v' && type != 'x' && type != 'n') {
+                    throw new RuntimeException("Invalid DIMACS line: " + line(buffer, start, lineEnd));
+                }
+            }
+            start = lineEnd + 1;
+        }
+        return CsrGraph.fromEdges(size == -1 ? maxVertex : size, edges, edgeCount);
+    }
+
+    /**
+     * Returns a graph given as bitboards in DIMACS format, a "p edge n m" line and an "e u v" line for every edge.
+     * @param size The size of the graph.
+     * @param neighbours The neighbours of every vertex, vertex v uses the words v * Graph6.words(size) until
+     *                   (v + 1) * Graph6.words(size).
+     */
+    public static byte[] encode(int size, long[] neighbours) {
+        int words = Graph6.words(size);
+        long edgeCount = 0;
+        for (long word : neighbours) {
+            edgeCount += Long.bitCount(word);
+        }
+        StringBuilder text = new StringBuilder();
+        text.append("p edge ").append(size).append(' ').append(edgeCount / 2).append('\n');
+        for (int v = 0; v < size; v++) {
+            for (int w = v >>> 6; w < words; w++) {
+                long nb = neighbours[v * words + w];
+                if (w == v >>> 6) {
+                    nb &= -2L << (v & 63);
+                }
+                for (; nb != 0; nb &= nb - 1) {
+                    int u = (w << 6) + Long.numberOfTrailingZeros(nb);
+                    text.append("e ").append(v + 1).append(' ').append(u + 1).append('\n');
+                }
+            }
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Read the numbers separated by spaces from start until end, at most numbers.length of them.
+     * @return The amount of numbers on the line, -1 if something else than a number is found.
+     */
+    private static int readNumbers(ByteBuffer buffer, int start, int end, long[] numbers) {
+        int count = 0;
+        int index = start;
+        while (true) {
+            while (index < end && isSpace(buffer.get(index))) {
+                index++;
+            }
+            if (index == end) {
+                return count;
+            }
+            long number = 0;
+            int digits = 0;
+            while (index < end && buffer.get(index) >= '0' && buffer.get(index) <= '9') {
+                number = Math.min(number * 10 + (buffer.get(index) - '0'), Long.MAX_VALUE / 10);
+                index++;
+                digits++;
+            }
+            if (digits == 0 || (index < end && !isSpace(buffer.get(index)))) {
+                return -1;
+            }
+            if (count < numbers.length) {
+                numbers[count] = number;
+            }
+            count++;
+        }
+    }
+
+    private static boolean isSpace(byte character) {
+        return character == ' ' || character == '\t' || character == '\r';
+    }
+
+    private static String line(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII).trim();
+    }
+}
@@ -1,6 +1,12 @@
 package src;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -8,7 +14,29 @@ import java.util.*;
  *
  * @author Matias Daneels
  */
-public class FileReader {
+public class FileReader implements Closeable {
+
+    /**
+     * The maximum size (in bytes) of a chunk of a memory-mapped file.
+     */
+    private static final long MAX_CHUNK_SIZE = 1L << 24;
+
+    /**
+     * The minimum size (in bytes) of a chunk of a memory-mapped file.
+     */
+    private static final long MIN_CHUNK_SIZE = 1L << 16;
+
+    /**
+     * The size (in bytes) of the part of the file that is mapped at once when searching for the end of a line.
+     */
+    private static final int WINDOW_SIZE = 1 << 16;
+
+    /**
+     * Handles one line of a memory-mapped chunk, the line does not contain the line break.
+     */
+    public interface LineHandler {
+        void handle(ByteBuffer chunk, int offset, int length) throws Exception;
+    }
 
     /**
      * List containing the adjacency matrices of the graphs in the input file.
@@ -19,6 +47,15 @@ public class FileReader {
         return adjacencyMatrix;
     }
 
+    /**
+     * List containing the graphs of a DIMACS input file, as compressed adjacency lists.
+     */
+    private List<CsrGraph> sparseGraphs = new ArrayList<>();
+
+    public List<CsrGraph> getSparseGraphs(){
+        return sparseGraphs;
+    }
+
     /**
      * Name/path of the input file.
      */
@@ -37,90 +74,240 @@ public class FileReader {
         return stringsOfGraphs;
     }
 
+    /**
+     * The channel of the input file when it is memory-mapped, null otherwise.
+     */
+    private FileChannel channel = null;
+
+    /**
+     * The size of the input file when it is memory-mapped.
+     */
+    private long fileSize = 0;
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * The size of the chunks the memory-mapped file is split in.
+     */
+    private long chunkSize = MAX_CHUNK_SIZE;
+
+    /**
+     * The format of the graphs in the memory-mapped file.
+     */
+    private final GraphFormat format;
+
+    public GraphFormat getFormat() {
+        return format;
+    }
+
     /**
      * Constructor for a new FileReader
      * @param fileName The name/path of the input file.
      */
     public FileReader(String fileName) {
+        this(fileName, GraphFormat.GRAPH6);
+    }
+
+    /**
+     * Constructor for a new FileReader of a file that is read memory-mapped.
+     * @param fileName The name/path of the input file.
+     * @param format The format of the graphs in the file.
+     */
+    public FileReader(String fileName, GraphFormat format) {
         this.fileName = fileName;
+        this.format = format;
     }
 
-    public void readGraph6() throws FileNotFoundException {
-        Scanner scanner = new Scanner(new File(fileName));
-        String nextLine;
+    /**
+     * Open the input file to read it memory-mapped, in chunks that end at a line break (or at the end of a record for
+     * the binary format). Nothing is kept in memory
+     * between chunks, so files of any size can be read.
+     * @param workers The amount of workers that will handle the chunks, the chunks are made small enough so every
+     *                worker gets several chunks.
+     */
+    public void openMapped(int workers) throws IOException {
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        fileSize = channel.size();
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, fileSize / (workers * 8L)));
+    }
 
-        while(scanner.hasNext()){
-            nextLine = scanner.nextLine();
-            stringsOfGraphs.add(nextLine);
-            int size = sizeFromGraph6(nextLine);
-            if (size == -1) {
-                throw new RuntimeException("Invalid Graph6 notation");
+    /**
+     * Returns the end of the chunk that starts at the given position: the position after the first line break
+     * that comes at least chunkSize bytes after the start, or the end of the file. For the binary format it is the end
+     * of the first record that ends at least chunkSize bytes after the start.
+     * @param start The position of the first byte of the chunk, the start of a line.
+     */
+    public long chunkEnd(long start) throws IOException {
+        if (!format.isText()) {
+            return skipRecords(start, Long.MAX_VALUE, Math.min(fileSize, start + chunkSize));
+        }
+        long position = start + chunkSize;
+        while (position < fileSize) {
+            int window = (int) Math.min(WINDOW_SIZE, fileSize - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+            for (int i = 0; i < window; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
             }
-
-            List<Byte> bitList = parseGraph6ToBits(nextLine, size);
-            adjacencyMatrix.add(buildAdjacencyMatrix(bitList, size));
+            position += window;
         }
-        scanner.close();
+        return fileSize;
     }
 
     /**
-     * Returns the size of the graph when the graph is given in graph6 form.
-     * @param graph6 String of the graph in graph6 form.
-     * @return The size of the graph represented by the input.
+     * Returns the position after the given amount of lines (or records for the binary format), starting from the given
+     * position.
+     * @param start The position of the start of a line.
+     * @param lines The amount of lines to skip.
      */
-    private static int sizeFromGraph6(String graph6) {
-        byte[] bytes = graph6.getBytes();
-        int n = bytes[0] - 63;
-        if (n == 63){
-            n = (short)((bytes[1] <<= 16 | (bytes[2] <<= 8) ) | (bytes[3]));
+    public long skipLines(long start, long lines) throws IOException {
+        if (!format.isText()) {
+            return skipRecords(start, lines, Long.MAX_VALUE);
         }
-        if (n < 0) {
-            return -1; // Invalid Graph6 notation
+        long position = start;
+        while (lines > 0 && position < fileSize) {
+            int window = (int) Math.min(WINDOW_SIZE, fileSize - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+            int i = 0;
+            while (lines > 0 && i < window) {
+                if (buffer.get(i++) == '\n') {
+                    lines--;
+                }
+            }
+            position += i;
+        }
+        //A last line without a line break
+        if (lines == 1 && position == fileSize && position > start && !endsWithLineBreak()) {
+            lines--;
+        }
+        if (lines > 0) {
+            throw new RuntimeException("The input has less graphs than the checkpoint file");
+        }
+        return position;
+    }
+
+    /**
+     * Returns the position after the given amount of records of the binary format, or after the first record that
+     * ends at or after the given end, whichever comes first.
+     * @param start The position of the start of a record.
+     * @param records The maximum amount of records to skip.
+     * @param end The position to stop at, after the end of the file if all the records have to be there.
+     */
+    private long skipRecords(long start, long records, long end) throws IOException {
+        long position = start;
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        for (long skipped = 0; skipped < records && position < end; skipped++) {
+            if (position == fileSize) {
+                throw new RuntimeException("The input has less graphs than the checkpoint file");
+            }
+            if (position + GraphBinary.PREFIX_LENGTH > fileSize) {
+                throw new RuntimeException("The binary input ends in the middle of a graph");
+            }
+            if (window == null || position + GraphBinary.PREFIX_LENGTH > windowStart + window.limit()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+            }
+            int length = window.getInt((int) (position - windowStart));
+            if (length < 0) {
+                throw new RuntimeException("Invalid binary graph");
+            }
+            position += GraphBinary.PREFIX_LENGTH + length;
+            if (position > fileSize) {
+                throw new RuntimeException("The binary input ends in the middle of a graph");
+            }
         }
-        return n;
+        return position;
     }
 
     /**
-     * Creates a bit list that represents the adjacency matrix.
-     * @param graph6 String of the graph in graph6 form.
-     * @param size The size of the given graph.
-     * @return A bit list that represents the adjacency matrix.
+     * Give every graph of a chunk to the handler: every line without the line break for the text formats, every
+     * record without the length for the binary format.
+     * @param chunk The chunk, from mapChunk().
+     * @param handler The handler for the graphs.
      */
-    private static List<Byte> parseGraph6ToBits(String graph6, int size) {
-        byte[] bytes = graph6.getBytes();
-        List<Byte> bitList = new ArrayList<>();
-        int i = 1;
-        if (size > 62){
-            i = 4;
+    public void forEachGraph(ByteBuffer chunk, LineHandler handler) throws Exception {
+        if (format.isText()) {
+            forEachLine(chunk, handler);
+            return;
         }
-        for (; i < bytes.length; i++) {
-            byte byteValue = (byte) (bytes[i] - 63);
-            for (int shift = 5; shift >= 0; shift--) {
-                byte mask = (byte) (1 << shift);
-                bitList.add((byte) ((byteValue & mask) > 0 ? 1 : 0));
+        int limit = chunk.limit();
+        for (int start = 0; start < limit; ) {
+            int length = chunk.getInt(start);
+            if (length < 0 || length > limit - start - GraphBinary.PREFIX_LENGTH) {
+                throw new RuntimeException("The binary input ends in the middle of a graph");
             }
+            handler.handle(chunk, start + GraphBinary.PREFIX_LENGTH, length);
+            start += GraphBinary.PREFIX_LENGTH + length;
         }
-        int adjustedBitListSize = bitList.size() - (bitList.size() - (size * (size - 1)) / 2);
-        return bitList.subList(0, adjustedBitListSize);
+    }
+
+    private boolean endsWithLineBreak() throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, fileSize - 1, 1).get(0) == '\n';
+    }
+
+    /**
+     * Map a chunk of the file into memory.
+     * @param start The position of the first byte of the chunk.
+     * @param end The position after the last byte of the chunk.
+     */
+    public MappedByteBuffer mapChunk(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new RuntimeException("A line of the input file is too long");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
     }
 
     /**
-     * Builds the adjacency matrix when the bit list from parseGraph6ToBits() and size is given.
-     * @param bitList The bit list representing the adjacency matrix from parseGraph6ToBits().
-     * @param size The size of the graph.
-     * @return Returns the adjacency matrix of the graph.
+     * Give every line of a chunk to the handler, without the line break (\n or \r\n).
+     * @param chunk The chunk, from mapChunk().
+     * @param handler The handler for the lines.
      */
-    private static int[][] buildAdjacencyMatrix(List<Byte> bitList, int size) {
-        int[][] adjMatrix = new int[size][size];
-        int bitIndex = 0;
-        for (int i = 1; i < size; i++) {
-            for (int j = 0; j < i; j++) {
-                adjMatrix[i][j] = bitList.get(bitIndex);
-                adjMatrix[j][i] = bitList.get(bitIndex);
-                bitIndex++;
+    public static void forEachLine(ByteBuffer chunk, LineHandler handler) throws Exception {
+        int start = 0;
+        int limit = chunk.limit();
+        while (start < limit) {
+            int end = start;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
             }
+            int length = end - start;
+            if (length > 0 && chunk.get(end - 1) == '\r') {
+                length--;
+            }
+            handler.handle(chunk, start, length);
+            start = end + 1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
         }
-        return adjMatrix;
+    }
+
+    public void readGraph6() throws FileNotFoundException {
+        Scanner scanner = new Scanner(new File(fileName));
+        String nextLine;
+
+        while(scanner.hasNext()){
+            nextLine = scanner.nextLine();
+            stringsOfGraphs.add(nextLine);
+            byte[] bytes = nextLine.getBytes(StandardCharsets.US_ASCII);
+            int size = Graph6.size(bytes, 0, bytes.length);
+            if (size == -1) {
+                throw new RuntimeException("Invalid Graph6 notation");
+            }
+
+            long[] neighbours = new long[size * Graph6.words(size)];
+            Graph6.decode(bytes, 0, bytes.length, size, neighbours);
+            adjacencyMatrix.add(Graph6.toAdjacencyMatrix(size, neighbours));
+        }
+        scanner.close();
     }
 
     public void readAdjMatrix() throws FileNotFoundException {
@@ -148,31 +335,16 @@ public class FileReader {
         scanner.close();
     }
 
-    public void readWeirdFormat() throws FileNotFoundException{
-        Scanner scanner = new Scanner(new File(fileName));
-        String nextLine;
-        int dimension;
-
-        while(scanner.hasNext()){
-            nextLine = scanner.nextLine();
-            String[] arrayOfLine = nextLine.split(" ");
-
-            if (Objects.equals(arrayOfLine[0], "c") || Objects.equals(arrayOfLine[0], "d") || Objects.equals(arrayOfLine[0], "v") ||
-                    Objects.equals(arrayOfLine[0], "x") || Objects.equals(arrayOfLine[0], "n"));
-
-            else if (Objects.equals(arrayOfLine[0], "p")){
-                if (!(Objects.equals(arrayOfLine[1], "edge")) && !(Objects.equals(arrayOfLine[1], "col"))){
-                    throw new RuntimeException("Input file is not valid");
-                }
-                dimension = Integer.parseInt(arrayOfLine[2]);
-                adjacencyMatrix.add(new int[dimension][dimension]);
-            }
-
-            else if (Objects.equals(arrayOfLine[0], "e")){
-                adjacencyMatrix.get(0)[Integer.parseInt(arrayOfLine[1])-1][Integer.parseInt(arrayOfLine[2])-1] = 1;
-                adjacencyMatrix.get(0)[Integer.parseInt(arrayOfLine[2])-1][Integer.parseInt(arrayOfLine[1])-1] = 1;
+    /**
+     * Read the graphs of a DIMACS file (or a plain edge list, see Dimacs) into compressed adjacency lists. The file is
+     * read graph by graph, every graph only uses memory for its edges.
+     */
+    public void readDimacs() throws IOException {
+        try (GraphStream graphs = new GraphStream(new FileInputStream(fileName), GraphFormat.DIMACS)) {
+            byte[] graph;
+            while ((graph = graphs.next()) != null) {
+                sparseGraphs.add(Dimacs.decode(ByteBuffer.wrap(graph), 0, graph.length));
             }
         }
-        scanner.close();
     }
 }
\ No newline at end of file
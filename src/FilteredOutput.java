@@ -0,0 +1,169 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class that writes the graphs that pass the filters. By default every graph is written to stdout through a buffer as
+ * soon as it is found, so the filtered graphs are not kept in memory. When the graphs are grouped per filter (--group),
+ * they are spilled to a temporary file per maximum degree and injective chromatic number, the grouped report is written
+ * from those files at the end.
+ * Only one thread may add graphs (the main thread, also with --threads).
+ */
+public class FilteredOutput implements Closeable {
+
+    private static final String SEPARATOR = "--------------------";
+
+    /**
+     * The buffered stdout.
+     */
+    private final OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16);
+
+    /**
+     * True if the coloring of the graphs is written as well (-c).
+     */
+    private final boolean coloring;
+
+    /**
+     * The format the graphs are written in.
+     */
+    private final GraphFormat format;
+
+    /**
+     * The spill files per (maximum degree, injective chromatic number), null if the graphs are not grouped.
+     */
+    private final TreeMap<Tuple<Integer, Integer>, Spill> spills;
+
+    /**
+     * A temporary file with the graphs of one group: for every graph the length of the graph6 notation, the graph6
+     * notation and, with -c, the length and colors of the coloring.
+     */
+    private static class Spill {
+        private final File file;
+        private final DataOutputStream data;
+
+        private Spill() throws IOException {
+            file = Files.createTempFile("injChromNumber", ".spill").toFile();
+            file.deleteOnExit();
+            data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+    }
+
+    /**
+     * Constructor for the output of the filtered graphs.
+     * @param coloring True if the coloring of the graphs is written as well.
+     * @param format The format the graphs are written in.
+     * @param group True if the graphs are grouped per filter at the end instead of written when they are found.
+     */
+    public FilteredOutput(boolean coloring, GraphFormat format, boolean group) {
+        this.coloring = coloring;
+        this.format = format;
+        this.spills = group ? new TreeMap<>((a, b) -> a.x.equals(b.x) ? Integer.compare(a.y, b.y) : Integer.compare(a.x, b.x)) : null;
+    }
+
+    /**
+     * Write a graph that passes a filter, or spill it to the file of its group.
+     * @param graph6 The graph6 notation of the graph.
+     * @param maxDeg The maximum degree of the graph.
+     * @param injNum The injective chromatic number of the graph.
+     * @param colors The injective coloring of the graph.
+     */
+    public void add(String graph6, int maxDeg, int injNum, int[] colors) throws IOException {
+        if (spills == null) {
+            write(graph6, colors);
+            return;
+        }
+        Tuple<Integer, Integer> key = new Tuple<>(maxDeg, injNum);
+        Spill spill = spills.get(key);
+        if (spill == null) {
+            spill = new Spill();
+            spills.put(key, spill);
+        }
+        byte[] bytes = graph6.getBytes(StandardCharsets.US_ASCII);
+        spill.data.writeInt(bytes.length);
+        spill.data.write(bytes);
+        if (coloring) {
+            spill.data.writeInt(colors.length);
+            for (int color : colors) {
+                spill.data.writeInt(color);
+            }
+        }
+    }
+
+    /**
+     * Write a graph to stdout. A graph6 notation gets its coloring on the same line, the coloring of a graph in
+     * another format is written to stderr right after the graph is flushed, so a coloring follows its graph when stdout
+     * and stderr are captured together.
+     */
+    private void write(String graph6, int[] colors) throws IOException {
+        if (format == GraphFormat.GRAPH6) {
+            out.write(graph6.getBytes(StandardCharsets.US_ASCII));
+            if (coloring) {
+                out.write(("\t" + Arrays.toString(colors)).getBytes(StandardCharsets.US_ASCII));
+            }
+            out.write('\n');
+        }
+        else {
+            format.write(out, graph6);
+            if (coloring) {
+                out.flush();
+                System.err.println(Arrays.toString(colors));
+            }
+        }
+    }
+
+    /**
+     * Write all graphs that are not written yet: with --group the report with the graphs per filter, the names of the
+     * filters are written to stderr.
+     */
+    public void finish() throws IOException {
+        if (spills != null && !spills.isEmpty()) {
+            out.flush();
+            System.err.println(SEPARATOR);
+            for (Map.Entry<Tuple<Integer, Integer>, Spill> group : spills.entrySet()) {
+                System.err.println("Filter: max degree = " + group.getKey().x + ", inj = " + group.getKey().y);
+                Spill spill = group.getValue();
+                spill.data.close();
+                try (DataInputStream data = new DataInputStream(new BufferedInputStream(new FileInputStream(spill.file)))) {
+                    for (long left = spill.file.length(); left > 0; ) {
+                        byte[] bytes = new byte[data.readInt()];
+                        data.readFully(bytes);
+                        left -= 4 + bytes.length;
+                        int[] colors = null;
+                        if (coloring) {
+                            colors = new int[data.readInt()];
+                            for (int i = 0; i < colors.length; i++) {
+                                colors[i] = data.readInt();
+                            }
+                            left -= 4 + 4L * colors.length;
+                        }
+                        write(new String(bytes, StandardCharsets.US_ASCII), colors);
+                    }
+                }
+                spill.file.delete();
+                out.flush();
+                System.err.println(SEPARATOR);
+            }
+            spills.clear();
+        }
+        out.flush();
+    }
+
+    /**
+     * Flush stdout and remove the spill files that are left.
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+        if (spills != null) {
+            for (Spill spill : spills.values()) {
+                spill.data.close();
+                spill.file.delete();
+            }
+        }
+    }
+}
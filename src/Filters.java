@@ -0,0 +1,154 @@
+package src;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The filters of a run: a filter "d-k" (greater or equal than) is passed by the graphs with maximum degree d and an
+ * injective chromatic number of at least k, a filter "=d-k" (equal than) by the graphs with maximum degree d and
+ * injective chromatic number k. The filters are kept as a table indexed by the maximum degree, so checking a graph is
+ * a constant amount of array accesses however many filters there are.
+ */
+public class Filters {
+
+    private final List<Tuple<Integer, Integer>> filtersListGE;
+
+    private final List<Tuple<Integer, Integer>> filtersListE;
+
+    public List<Tuple<Integer, Integer>> getFiltersListGE() {
+        return filtersListGE;
+    }
+
+    public List<Tuple<Integer, Integer>> getFiltersListE() {
+        return filtersListE;
+    }
+
+    /**
+     * The smallest k of the greater or equal than filters for every maximum degree, Integer.MAX_VALUE if there is no
+     * such filter.
+     */
+    private final int[] minimumGE;
+
+    /**
+     * The equal than filters, bit k of word d * words + k / 64 is set if there is a filter "=d-k".
+     */
+    private final long[] equal;
+
+    /**
+     * The number of words per maximum degree in equal.
+     */
+    private final int words;
+
+    /**
+     * Constructor for the filters.
+     * @param filtersListGE The greater or equal than filters, (d, k) is the filter "d-k".
+     * @param filtersListE The equal than filters, (d, k) is the filter "=d-k".
+     */
+    public Filters(List<Tuple<Integer, Integer>> filtersListGE, List<Tuple<Integer, Integer>> filtersListE) {
+        this.filtersListGE = filtersListGE;
+        this.filtersListE = filtersListE;
+        int degrees = 0;
+        int maxInj = 0;
+        for (Tuple<Integer, Integer> filter : filtersListGE) {
+            degrees = Math.max(degrees, filter.x + 1);
+        }
+        for (Tuple<Integer, Integer> filter : filtersListE) {
+            degrees = Math.max(degrees, filter.x + 1);
+            maxInj = Math.max(maxInj, filter.y);
+        }
+
+        minimumGE = new int[degrees];
+        Arrays.fill(minimumGE, Integer.MAX_VALUE);
+        for (Tuple<Integer, Integer> filter : filtersListGE) {
+            if (filter.x >= 0) {
+                minimumGE[filter.x] = Math.min(minimumGE[filter.x], filter.y);
+            }
+        }
+
+        words = (maxInj + 64) >>> 6;
+        equal = new long[degrees * words];
+        for (Tuple<Integer, Integer> filter : filtersListE) {
+            if (filter.x >= 0 && filter.y >= 0) {
+                equal[filter.x * words + (filter.y >>> 6)] |= 1L << filter.y;
+            }
+        }
+    }
+
+    /**
+     * Returns true if there are no filters.
+     */
+    public boolean isEmpty() {
+        return filtersListGE.isEmpty() && filtersListE.isEmpty();
+    }
+
+    /**
+     * Returns true if there is a filter for graphs with the given maximum degree.
+     */
+    public boolean hasDegree(int maxDeg) {
+        if (maxDeg < 0 || maxDeg >= minimumGE.length) {
+            return false;
+        }
+        if (minimumGE[maxDeg] != Integer.MAX_VALUE) {
+            return true;
+        }
+        for (int w = 0; w < words; w++) {
+            if (equal[maxDeg * words + w] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest k of the filters for graphs with the given maximum degree: a graph with a smaller injective
+     * chromatic number passes none of them. Integer.MAX_VALUE if there is no such filter.
+     */
+    public int getLowest(int maxDeg) {
+        if (maxDeg < 0 || maxDeg >= minimumGE.length) {
+            return Integer.MAX_VALUE;
+        }
+        int lowest = minimumGE[maxDeg];
+        for (int w = 0; w < words; w++) {
+            long bits = equal[maxDeg * words + w];
+            if (bits != 0) {
+                return Math.min(lowest, (w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Returns the biggest injective chromatic number of graphs with the given maximum degree for which the exact number
+     * matters: the graphs with a bigger injective chromatic number pass none of the filters. When there is a greater or
+     * equal than filter every bigger number passes and is needed for the table and the output, so there is no biggest
+     * one: Integer.MAX_VALUE - 1 is returned. -1 if there is no filter for the maximum degree.
+     */
+    public int getHighest(int maxDeg) {
+        if (maxDeg < 0 || maxDeg >= minimumGE.length) {
+            return -1;
+        }
+        if (minimumGE[maxDeg] != Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE - 1;
+        }
+        for (int w = words - 1; w >= 0; w--) {
+            long bits = equal[maxDeg * words + w];
+            if (bits != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if a graph with the given maximum degree and injective chromatic number passes one of the filters.
+     */
+    public boolean passes(int maxDeg, int injNum) {
+        if (maxDeg < 0 || maxDeg >= minimumGE.length || injNum < 0) {
+            return false;
+        }
+        if (injNum >= minimumGE[maxDeg]) {
+            return true;
+        }
+        return (injNum >>> 6) < words && (equal[maxDeg * words + (injNum >>> 6)] & (1L << injNum)) != 0;
+    }
+}
@@ -0,0 +1,194 @@
+package src;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class that decodes and encodes the graph6 notation (http://users.cecs.anu.edu.au/~bdm/data/formats.txt) directly from bytes.
+ * The graph is written into bitboards: the neighbours of vertex v are stored in the words v * words until
+ * (v + 1) * words, vertex u is bit u % 64 of word u / 64.
+ */
+public class Graph6 {
+
+    /**
+     * Returns the size of the graph in the given graph6 notation.
+     * The size n is given by 1 character if n <= 62, by '~' and 3 characters if n <= 258047 and by '~~' and 6
+     * characters otherwise. Every character holds 6 bits, 63 is added to make it printable.
+     * @param buffer The buffer containing the graph6 notation.
+     * @param offset The index of the first character of the graph6 notation.
+     * @param length The number of characters of the graph6 notation.
+     * @return The size of the graph, -1 if the notation is invalid.
+     */
+    public static int size(ByteBuffer buffer, int offset, int length) {
+        if (length < 1) {
+            return -1;
+        }
+        int first = buffer.get(offset) - 63;
+        if (first < 0 || first > 63) {
+            return -1;
+        }
+        if (first < 63) {
+            return first;
+        }
+        int characters = 3;
+        int start = offset + 1;
+        if (length > 1 && buffer.get(offset + 1) == 126) {
+            characters = 6;
+            start = offset + 2;
+        }
+        if (start + characters > offset + length) {
+            return -1;
+        }
+        long n = 0;
+        for (int i = start; i < start + characters; i++) {
+            int value = buffer.get(i) - 63;
+            if (value < 0 || value > 63) {
+                return -1;
+            }
+            n = (n << 6) | value;
+        }
+        return n > Integer.MAX_VALUE ? -1 : (int) n;
+    }
+
+    public static int size(byte[] data, int offset, int length) {
+        return size(ByteBuffer.wrap(data), offset, length);
+    }
+
+    /**
+     * Returns the number of characters used for the size of a graph in the graph6 notation.
+     */
+    public static int headerLength(int size) {
+        if (size <= 62) {
+            return 1;
+        }
+        return size <= 258047 ? 4 : 8;
+    }
+
+    /**
+     * Returns the number of words of type long needed for a set of vertices of a graph with the given size.
+     */
+    public static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Decode the edges of a graph in graph6 notation into bitboards. The upper triangle of the adjacency matrix is
+     * given column by column, 6 bits per character.
+     * @param buffer The buffer containing the graph6 notation.
+     * @param offset The index of the first character of the graph6 notation.
+     * @param length The number of characters of the graph6 notation.
+     * @param size The size of the graph, from size().
+     * @param neighbours The bitboards the neighbours are written to, at least size * words(size) long. The words
+     *                   that are used are cleared first.
+     */
+    public static void decode(ByteBuffer buffer, int offset, int length, int size, long[] neighbours) {
+        int words = words(size);
+        java.util.Arrays.fill(neighbours, 0, size * words, 0L);
+
+        long bits = (long) size * (size - 1) / 2;
+        int index = offset + headerLength(size);
+        if (index + (bits + 5) / 6 > offset + length) {
+            throw new RuntimeException("Invalid Graph6 notation");
+        }
+
+        int i = 0;
+        int j = 1;
+        for (long done = 0; done < bits; index++) {
+            int value = buffer.get(index) - 63;
+            if (value < 0 || value > 63) {
+                throw new RuntimeException("Invalid Graph6 notation");
+            }
+            for (int shift = 5; shift >= 0 && done < bits; shift--, done++) {
+                if (((value >>> shift) & 1) != 0) {
+                    neighbours[i * words + (j >>> 6)] |= 1L << j;
+                    neighbours[j * words + (i >>> 6)] |= 1L << i;
+                }
+                if (++i == j) {
+                    i = 0;
+                    j++;
+                }
+            }
+        }
+    }
+
+    public static void decode(byte[] data, int offset, int length, int size, long[] neighbours) {
+        decode(ByteBuffer.wrap(data), offset, length, size, neighbours);
+    }
+
+    /**
+     * Write the size of a graph in the graph6 notation (see size()) into a buffer.
+     * @param size The size of the graph.
+     * @param data The buffer, at least offset + headerLength(size) long.
+     * @param offset The index the size is written to.
+     */
+    public static void encodeSize(int size, byte[] data, int offset) {
+        int characters = headerLength(size);
+        if (characters == 1) {
+            data[offset] = (byte) (size + 63);
+            return;
+        }
+        data[offset] = 126;
+        int start = offset + 1;
+        if (characters == 8) {
+            data[offset + 1] = 126;
+            start++;
+        }
+        for (int i = offset + characters - 1; i >= start; i--, size >>>= 6) {
+            data[i] = (byte) ((size & 63) + 63);
+        }
+    }
+
+    /**
+     * Returns the graph6 notation of a graph given as bitboards.
+     * @param size The size of the graph.
+     * @param neighbours The neighbours of every vertex.
+     * @return The bytes of the graph6 notation, without a line break.
+     */
+    public static byte[] encode(int size, long[] neighbours) {
+        int words = words(size);
+        int header = headerLength(size);
+        long bits = (long) size * (size - 1) / 2;
+        if (header + (bits + 5) / 6 > Integer.MAX_VALUE) {
+            throw new RuntimeException("The graph is too big for the graph6 notation");
+        }
+        byte[] data = new byte[header + (int) ((bits + 5) / 6)];
+        encodeSize(size, data, 0);
+
+        //Only the neighbours i < j of vertex j are in column j
+        for (int j = 1; j < size; j++) {
+            long columnStart = (long) j * (j - 1) / 2;
+            for (int w = 0; w <= (j - 1) >>> 6; w++) {
+                long nb = neighbours[j * words + w];
+                if (w == j >>> 6) {
+                    nb &= (1L << j) - 1;
+                }
+                for (; nb != 0; nb &= nb - 1) {
+                    long k = columnStart + (w << 6) + Long.numberOfTrailingZeros(nb);
+                    data[header + (int) (k / 6)] |= (byte) (32 >>> (k % 6));
+                }
+            }
+        }
+        for (int i = header; i < data.length; i++) {
+            data[i] += 63;
+        }
+        return data;
+    }
+
+    /**
+     * Returns the adjacency matrix of a graph given as bitboards.
+     * @param size The size of the graph.
+     * @param neighbours The neighbours of every vertex.
+     * @return The adjacency matrix, 1 if two vertices are neighbours and 0 otherwise.
+     */
+    public static int[][] toAdjacencyMatrix(int size, long[] neighbours) {
+        int words = words(size);
+        int[][] adjMatrix = new int[size][size];
+        for (int v = 0; v < size; v++) {
+            for (int w = 0; w < words; w++) {
+                for (long nb = neighbours[v * words + w]; nb != 0; nb &= nb - 1) {
+                    adjMatrix[v][(w << 6) + Long.numberOfTrailingZeros(nb)] = 1;
+                }
+            }
+        }
+        return adjMatrix;
+    }
+}
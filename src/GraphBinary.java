@@ -0,0 +1,112 @@
+package src;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class that encodes and decodes the compact binary format of a graph. A graph is stored as a record: the length of
+ * the rest of the record (4 bytes, big-endian), the size n of the graph (4 bytes, big-endian) and the upper triangle
+ * of the adjacency matrix as a bitset. The bits are in the same order as in the graph6 notation (the edge {i, j} with
+ * i < j is bit j * (j - 1) / 2 + i), 8 bits per byte starting at the lowest bit. Records can simply be concatenated,
+ * there is no header for the whole stream.
+ * The graph is written into bitboards like in Graph6: the neighbours of vertex v are stored in the words v * words
+ * until (v + 1) * words.
+ */
+public class GraphBinary {
+
+    /**
+     * The number of bytes used for the length of a record.
+     */
+    public static final int PREFIX_LENGTH = 4;
+
+    /**
+     * Returns the number of bytes of a record of a graph with the given size, without the length.
+     */
+    public static int length(int size) {
+        long bits = (long) size * (size - 1) / 2;
+        long length = 4 + (bits + 7) / 8;
+        if (length > Integer.MAX_VALUE) {
+            throw new RuntimeException("The graph is too big for the binary format");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Returns the size of the graph in a record.
+     * @param buffer The buffer containing the record.
+     * @param offset The index of the first byte of the record, after the length.
+     * @param length The number of bytes of the record, without the length.
+     * @return The size of the graph, -1 if the record is invalid.
+     */
+    public static int size(ByteBuffer buffer, int offset, int length) {
+        if (length < 4) {
+            return -1;
+        }
+        int size = buffer.getInt(offset);
+        if (size < 0 || 4 + ((long) size * (size - 1) / 2 + 7) / 8 != length) {
+            return -1;
+        }
+        return size;
+    }
+
+    /**
+     * Decode the edges of a record into bitboards. Only the bytes that are not zero are looked at, so sparse graphs
+     * are decoded quickly.
+     * @param buffer The buffer containing the record.
+     * @param offset The index of the first byte of the record, after the length.
+     * @param length The number of bytes of the record, without the length.
+     * @param size The size of the graph, from size().
+     * @param neighbours The bitboards the neighbours are written to, at least size * Graph6.words(size) long. The
+     *                   words that are used are cleared first.
+     */
+    public static void decode(ByteBuffer buffer, int offset, int length, int size, long[] neighbours) {
+        int words = Graph6.words(size);
+        java.util.Arrays.fill(neighbours, 0, size * words, 0L);
+
+        long bits = (long) size * (size - 1) / 2;
+        //Bit k of the bitset is the edge {k - columnStart, j}
+        int j = 1;
+        long columnStart = 0;
+        for (int index = 4; index < length; index++) {
+            int value = buffer.get(offset + index) & 0xFF;
+            for (; value != 0; value &= value - 1) {
+                long k = (long) (index - 4) * 8 + Integer.numberOfTrailingZeros(value);
+                if (k >= bits) {
+                    throw new RuntimeException("Invalid binary graph");
+                }
+                while (k >= columnStart + j) {
+                    columnStart += j;
+                    j++;
+                }
+                int i = (int) (k - columnStart);
+                neighbours[i * words + (j >>> 6)] |= 1L << j;
+                neighbours[j * words + (i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * Returns the record of a graph given as bitboards, without the length.
+     * @param size The size of the graph.
+     * @param neighbours The neighbours of every vertex.
+     */
+    public static byte[] encode(int size, long[] neighbours) {
+        int words = Graph6.words(size);
+        byte[] record = new byte[length(size)];
+        ByteBuffer.wrap(record).putInt(0, size);
+        for (int j = 1; j < size; j++) {
+            long columnStart = (long) j * (j - 1) / 2;
+            //Only the neighbours i < j of vertex j are in column j
+            for (int w = 0; w <= (j - 1) >>> 6; w++) {
+                long nb = neighbours[j * words + w];
+                if (w == j >>> 6) {
+                    nb &= (1L << j) - 1;
+                }
+                for (; nb != 0; nb &= nb - 1) {
+                    long k = columnStart + (w << 6) + Long.numberOfTrailingZeros(nb);
+                    record[4 + (int) (k >>> 3)] |= (byte) (1 << (k & 7));
+                }
+            }
+        }
+        return record;
+    }
+}
@@ -0,0 +1,126 @@
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The formats graphs can be read and written in. graph6 and sparse6 are text formats with one graph per line, they
+ * are used to exchange graphs with other programs (nauty, plantri, ...). The binary format (see GraphBinary) is a
+ * stream of length-prefixed records, it is faster to read and write between runs of this program. The DIMACS format
+ * (see Dimacs) uses a line per edge, a graph starts at a "p" line.
+ */
+public enum GraphFormat {
+    GRAPH6,
+    SPARSE6,
+    BINARY,
+    DIMACS;
+
+    /**
+     * Returns the format with the given name: graph6, sparse6, bin or dimacs.
+     */
+    public static GraphFormat parse(String name) {
+        switch (name) {
+            case "graph6":
+            case "g6":
+                return GRAPH6;
+            case "sparse6":
+            case "s6":
+                return SPARSE6;
+            case "bin":
+            case "binary":
+                return BINARY;
+            case "dimacs":
+            case "edges":
+                return DIMACS;
+            default:
+                throw new IllegalArgumentException("Unknown graph format: " + name + " (graph6, sparse6, bin or dimacs)");
+        }
+    }
+
+    /**
+     * Returns true if the graphs are given one per line.
+     */
+    public boolean isText() {
+        return this == GRAPH6 || this == SPARSE6;
+    }
+
+    /**
+     * Returns a new backtracking algorithm for a graph in this format. The sparse formats are read into compressed
+     * adjacency lists first, see CsrGraph.
+     * @param buffer The buffer containing the graph.
+     * @param offset The index of the first byte of the graph (after the length for the binary format).
+     * @param length The number of bytes of the graph.
+     */
+    public BTA toBTA(ByteBuffer buffer, int offset, int length) {
+        switch (this) {
+            case GRAPH6:
+                return new BTA(buffer, offset, length);
+            case SPARSE6:
+                return new BTA(Sparse6.decode(buffer, offset, length));
+            case DIMACS:
+                return new BTA(Dimacs.decode(buffer, offset, length));
+            default:
+                int size = GraphBinary.size(buffer, offset, length);
+                if (size == -1) {
+                    throw new RuntimeException("Invalid binary graph");
+                }
+                long[] neighbours = new long[size * Graph6.words(size)];
+                GraphBinary.decode(buffer, offset, length, size, neighbours);
+                return new BTA(size, neighbours);
+        }
+    }
+
+    public BTA toBTA(byte[] data) {
+        return toBTA(ByteBuffer.wrap(data), 0, data.length);
+    }
+
+    /**
+     * Write a graph given as bitboards in this format: a line for graph6 and sparse6, a record for the binary format
+     * and a "p" line with the edge lines for DIMACS.
+     * @param out The stream the graph is written to.
+     * @param size The size of the graph.
+     * @param neighbours The neighbours of every vertex.
+     */
+    public void write(OutputStream out, int size, long[] neighbours) throws IOException {
+        switch (this) {
+            case GRAPH6:
+                out.write(Graph6.encode(size, neighbours));
+                out.write('\n');
+                break;
+            case SPARSE6:
+                out.write(Sparse6.encode(size, neighbours));
+                out.write('\n');
+                break;
+            case DIMACS:
+                out.write(Dimacs.encode(size, neighbours));
+                break;
+            default:
+                byte[] record = GraphBinary.encode(size, neighbours);
+                out.write(record.length >>> 24);
+                out.write(record.length >>> 16);
+                out.write(record.length >>> 8);
+                out.write(record.length);
+                out.write(record);
+        }
+    }
+
+    /**
+     * Write a graph given in graph6 notation in this format, see write().
+     */
+    public void write(OutputStream out, String graph6) throws IOException {
+        byte[] bytes = graph6.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        if (this == GRAPH6) {
+            out.write(bytes);
+            out.write('\n');
+            return;
+        }
+        int size = Graph6.size(bytes, 0, bytes.length);
+        if (size == -1) {
+            throw new RuntimeException("Invalid Graph6 notation");
+        }
+        long[] neighbours = new long[size * Graph6.words(size)];
+        Graph6.decode(bytes, 0, bytes.length, size, neighbours);
+        write(out, size, neighbours);
+    }
+}
@@ -0,0 +1,187 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Class that reads the graphs of a stream (for example stdin) one by one, in one of the formats of GraphFormat.
+ * The stream is read in big blocks, only the bytes of the graphs are copied. Only one graph is kept in memory at a
+ * time, so DIMACS files with big graphs are read graph by graph.
+ */
+public class GraphStream implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+
+    private final GraphFormat format;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * The "p" line of the next DIMACS graph, read at the end of the graph before it. Null if there is none.
+     */
+    private byte[] header = null;
+
+    /**
+     * The bytes from position until limit in the buffer are not read yet.
+     */
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * Constructor for a new stream of graphs.
+     * @param in The stream containing the graphs.
+     * @param format The format of the graphs.
+     */
+    public GraphStream(InputStream in, GraphFormat format) {
+        this.in = in;
+        this.format = format;
+    }
+
+    public GraphFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the bytes of the next graph: a line without the line break (\n or \r\n) for graph6 and sparse6, a record
+     * without the length for the binary format and the lines until the next "p" line for DIMACS. Returns null if there
+     * are no more graphs.
+     */
+    public byte[] next() throws IOException {
+        if (format == GraphFormat.DIMACS) {
+            return nextDimacs();
+        }
+        if (position == limit && !fill()) {
+            return null;
+        }
+        return format.isText() ? nextLine() : nextRecord();
+    }
+
+    /**
+     * Skip the given amount of graphs.
+     */
+    public void skip(long graphs) throws IOException {
+        for (long skipped = 0; skipped < graphs; skipped++) {
+            if (next() == null) {
+                throw new RuntimeException("The input has less graphs than the checkpoint file");
+            }
+        }
+    }
+
+    private byte[] nextLine() throws IOException {
+        byte[] line = null;
+        int length = 0;
+        while (true) {
+            int end = position;
+            while (end < limit && buffer[end] != '\n') {
+                end++;
+            }
+            int part = end - position;
+            if (line == null && end < limit) {
+                line = Arrays.copyOfRange(buffer, position, end);
+                length = part;
+            }
+            else {
+                if (line == null) {
+                    line = new byte[Math.max(64, part * 2)];
+                }
+                if (length + part > line.length) {
+                    line = Arrays.copyOf(line, Math.max(line.length * 2, length + part));
+                }
+                System.arraycopy(buffer, position, line, length, part);
+                length += part;
+            }
+            position = end;
+            if (end < limit) {
+                position++;
+                break;
+            }
+            if (!fill()) {
+                break;
+            }
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return line.length == length ? line : Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Returns the lines of the next DIMACS graph, separated by \n. The graph ends before the next "p" line, or at the
+     * end of the stream. Lines without a graph (only comments) at the end of the stream are not a graph.
+     */
+    private byte[] nextDimacs() throws IOException {
+        byte[] graph = new byte[BUFFER_SIZE];
+        int length = 0;
+        boolean started = false;
+        boolean empty = true;
+        byte[] line = header;
+        header = null;
+        while (line != null || position < limit || fill()) {
+            if (line == null) {
+                line = nextLine();
+            }
+            if (Dimacs.isHeader(line)) {
+                if (started) {
+                    header = line;
+                    break;
+                }
+                started = true;
+            }
+            empty &= !Dimacs.isEdge(line);
+            if (length + line.length + 1 > graph.length) {
+                graph = Arrays.copyOf(graph, Math.max(graph.length * 2, length + line.length + 1));
+            }
+            System.arraycopy(line, 0, graph, length, line.length);
+            length += line.length;
+            graph[length++] = '\n';
+            line = null;
+        }
+        return !started && empty ? null : Arrays.copyOf(graph, length);
+    }
+
+    private byte[] nextRecord() throws IOException {
+        byte[] prefix = new byte[GraphBinary.PREFIX_LENGTH];
+        readFully(prefix);
+        int length = ((prefix[0] & 0xFF) << 24) | ((prefix[1] & 0xFF) << 16) | ((prefix[2] & 0xFF) << 8) | (prefix[3] & 0xFF);
+        if (length < 0) {
+            throw new RuntimeException("Invalid binary graph");
+        }
+        byte[] record = new byte[length];
+        readFully(record);
+        return record;
+    }
+
+    private void readFully(byte[] data) throws IOException {
+        for (int done = 0; done < data.length; ) {
+            if (position == limit && !fill()) {
+                throw new RuntimeException("The binary input ends in the middle of a graph");
+            }
+            int part = Math.min(data.length - done, limit - position);
+            System.arraycopy(buffer, position, data, done, part);
+            position += part;
+            done += part;
+        }
+    }
+
+    /**
+     * Read the next block of the stream into the buffer, returns false at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(buffer, 0, BUFFER_SIZE);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
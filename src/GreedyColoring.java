@@ -0,0 +1,179 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class with heuristics that quickly find an injective coloring, used as an upper bound before the backtracking.
+ * Graphs are given by their injective neighbours as bitboards: vertex v uses the words v * words until
+ * (v + 1) * words.
+ */
+public class GreedyColoring {
+
+    /**
+     * The number of rounds of iterated greedy done after the DSATUR coloring.
+     */
+    private static final int ITERATIONS = 30;
+
+    /**
+     * Color every vertex without a color (color 0) with DSATUR: the uncolored vertex with the most different colors
+     * among its injective neighbours gets the smallest color possible, ties are broken by the number of uncolored
+     * injective neighbours.
+     * @param dimension The number of vertices in the graph.
+     * @param words The number of words per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours of every vertex.
+     * @param color The coloring to complete, vertices that already have a color keep it.
+     * @return The number of colors used.
+     */
+    public static int dsatur(int dimension, int words, long[] injNeighbours, int[] color){
+        //Colors used by the injective neighbours, vertex v uses the words v * words until (v + 1) * words
+        long[] restrictions = new long[dimension * words];
+        long[] uncolored = new long[words];
+        int numOfCol = 0;
+        for (int v = 0; v < dimension; v++){
+            if (color[v] != 0){
+                restrict(v, color[v], words, injNeighbours, restrictions);
+                numOfCol = Math.max(numOfCol, color[v]);
+            }
+            else {
+                uncolored[v >>> 6] |= 1L << v;
+            }
+        }
+
+        while (true){
+            int vertex = -1;
+            int saturation = -1;
+            int degree = -1;
+            for (int v = 0; v < dimension; v++){
+                if (color[v] != 0){
+                    continue;
+                }
+                int tempsat = 0;
+                int tempDegree = 0;
+                for (int w = 0; w < words; w++){
+                    tempsat += Long.bitCount(restrictions[v * words + w]);
+                    tempDegree += Long.bitCount(injNeighbours[v * words + w] & uncolored[w]);
+                }
+                if (tempsat > saturation || (tempsat == saturation && tempDegree > degree)){
+                    vertex = v;
+                    saturation = tempsat;
+                    degree = tempDegree;
+                }
+            }
+            if (vertex == -1){
+                return numOfCol;
+            }
+
+            int c = 1;
+            while ((restrictions[vertex * words + ((c - 1) >>> 6)] & (1L << (c - 1))) != 0){
+                c++;
+            }
+            color[vertex] = c;
+            uncolored[vertex >>> 6] &= ~(1L << vertex);
+            numOfCol = Math.max(numOfCol, c);
+            restrict(vertex, c, words, injNeighbours, restrictions);
+        }
+    }
+
+    /**
+     * Try to lower the number of colors of a coloring with iterated greedy: the vertices are colored again, first fit,
+     * one color class after the other. This never uses more colors than before, the classes are reordered every round.
+     * @param dimension The number of vertices in the graph.
+     * @param words The number of words per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours of every vertex.
+     * @param color A complete coloring, it is replaced by the best coloring found.
+     * @param numOfCol The number of colors the coloring uses.
+     * @param lowerBound The rounds stop when a coloring with this amount of colors is found.
+     * @return The number of colors of the best coloring found.
+     */
+    public static int iteratedGreedy(int dimension, int words, long[] injNeighbours, int[] color, int numOfCol,
+                                     int lowerBound){
+        Random random = new Random(dimension);
+        int[] order = new int[dimension];
+        int[] classOrder = new int[numOfCol];
+        int[] newColor = new int[dimension];
+        long[] used = new long[words];
+
+        for (int round = 0; round < ITERATIONS && numOfCol > lowerBound; round++){
+            //Order the color classes: reversed, then largest class first, then random
+            for (int c = 0; c < numOfCol; c++){
+                classOrder[c] = numOfCol - c;
+            }
+            if (round % 3 == 1){
+                int[] classSize = new int[numOfCol + 1];
+                for (int v = 0; v < dimension; v++){
+                    classSize[color[v]]++;
+                }
+                sortByKeyDescending(classOrder, classSize);
+            }
+            else if (round % 3 == 2){
+                for (int i = numOfCol - 1; i > 0; i--){
+                    int j = random.nextInt(i + 1);
+                    int temp = classOrder[i];
+                    classOrder[i] = classOrder[j];
+                    classOrder[j] = temp;
+                }
+            }
+            int index = 0;
+            for (int c : classOrder){
+                for (int v = 0; v < dimension; v++){
+                    if (color[v] == c){
+                        order[index++] = v;
+                    }
+                }
+            }
+
+            //Color first fit in that order
+            Arrays.fill(newColor, 0);
+            int newNumOfCol = 0;
+            for (int v : order){
+                Arrays.fill(used, 0);
+                for (int w = 0; w < words; w++){
+                    for (long nb = injNeighbours[v * words + w]; nb != 0; nb &= nb - 1){
+                        int u = (w << 6) + Long.numberOfTrailingZeros(nb);
+                        if (newColor[u] != 0){
+                            used[(newColor[u] - 1) >>> 6] |= 1L << (newColor[u] - 1);
+                        }
+                    }
+                }
+                int c = 1;
+                while ((used[(c - 1) >>> 6] & (1L << (c - 1))) != 0){
+                    c++;
+                }
+                newColor[v] = c;
+                newNumOfCol = Math.max(newNumOfCol, c);
+            }
+            System.arraycopy(newColor, 0, color, 0, dimension);
+            numOfCol = newNumOfCol;
+            classOrder = Arrays.copyOf(classOrder, numOfCol);
+        }
+        return numOfCol;
+    }
+
+    /**
+     * Forbid color c for the injective neighbours of a vertex.
+     */
+    private static void restrict(int vertex, int c, int words, long[] injNeighbours, long[] restrictions){
+        for (int w = 0; w < words; w++){
+            for (long nb = injNeighbours[vertex * words + w]; nb != 0; nb &= nb - 1){
+                int u = (w << 6) + Long.numberOfTrailingZeros(nb);
+                restrictions[u * words + ((c - 1) >>> 6)] |= 1L << (c - 1);
+            }
+        }
+    }
+
+    /**
+     * Sort the values by their key, biggest key first (insertion sort, there are few color classes).
+     */
+    private static void sortByKeyDescending(int[] values, int[] key){
+        for (int i = 1; i < values.length; i++){
+            int value = values[i];
+            int j = i - 1;
+            while (j >= 0 && key[values[j]] < key[value]){
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+}
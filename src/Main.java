@@ -1,8 +1,9 @@
 package src;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
@@ -25,20 +26,127 @@ public class Main {
 
         List<Tuple<Integer, Integer>> filtersListE = new ArrayList<>();
 
-        //Read input for filters if present (if there are not 4 input arguments, input is ignored)
-        if (Arrays.asList(args).contains("-f")){ //Only if filters are active
+        //Amount of worker threads, 1 means everything is done on the main thread
+        int threads = 1;
 
-            if (Arrays.asList(args).contains("-c")){
+        //Used to check if the filtered graphs may be printed in a different order than the input
+        boolean unordered = false;
+
+        //Cache with the results of graphs seen before, null if the results are not cached
+        ResultCache cache = null;
+
+        //Checkpoint file to keep the progress in, null if no checkpoint is kept
+        String checkpointFile = null;
+        boolean resume = false;
+        int checkpointInterval = 10000;
+
+        //File to read the graphs from (memory-mapped), null if the graphs are read from stdin
+        String inputFile = null;
+
+        //File to write the statistics of the search of every graph to, null if no statistics are kept
+        String statsFile = null;
+
+        //Time and node limits of the search of one graph (0 for no limit) and the file for the unresolved graphs
+        long timeoutMillis = 0;
+        long nodeLimit = 0;
+        String unresolvedFile = null;
+
+        //Pool the search of one graph is split over, null if every graph is searched on one thread
+        ForkJoinPool searchPool = null;
+
+        //Used to check if the symmetries of the graphs are broken during the search
+        boolean symmetryBreaking = false;
+
+        //Used to check if the filters are decided without calculating the injective chromatic number of every graph
+        boolean decide = false;
+
+        //Seconds between the progress lines (0 for none) and the port of the metrics server (-1 for none)
+        double progressSeconds = 0;
+        int metricsPort = -1;
+
+        //Used to check if the filtered graphs are printed per filter at the end instead of when they are found
+        boolean group = false;
+
+        //The format of the input graphs and of the filtered graphs that are printed
+        GraphFormat inFormat = GraphFormat.GRAPH6;
+        GraphFormat outFormat = GraphFormat.GRAPH6;
+
+        //Read input for filters if present, filters are read from -f until -c
+        boolean readingFilters = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-f")) {
+                readingFilters = true;
+            }
+            else if (arg.equals("-c")) {
+                readingFilters = false; //If -c is found, we are done with the filters
                 filterColoring = true;
             }
-
-            for (String arg: args) {
-                if (arg.equals("-f")) {
-                    continue;
+            else if (arg.equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+                if (threads < 1) {
+                    throw new IllegalArgumentException("The amount of threads should be at least 1");
                 }
-                if (arg.equals("-c")) {
-                    break; //If -c is found, we are done with the filters
+            }
+            else if (arg.equals("--unordered")) {
+                unordered = true;
+            }
+            else if (arg.equals("--cache")) {
+                cache = new ResultCache(Integer.parseInt(args[++i]));
+            }
+            else if (arg.equals("--checkpoint")) {
+                checkpointFile = args[++i];
+            }
+            else if (arg.equals("--checkpoint-every")) {
+                checkpointInterval = Integer.parseInt(args[++i]);
+            }
+            else if (arg.equals("--resume")) {
+                resume = true;
+            }
+            else if (arg.equals("-i")) {
+                inputFile = args[++i];
+            }
+            else if (arg.equals("--stats")) {
+                statsFile = args[++i];
+            }
+            else if (arg.equals("--timeout-ms")) {
+                timeoutMillis = Long.parseLong(args[++i]);
+            }
+            else if (arg.equals("--node-limit")) {
+                nodeLimit = Long.parseLong(args[++i]);
+            }
+            else if (arg.equals("--unresolved")) {
+                unresolvedFile = args[++i];
+            }
+            else if (arg.equals("--search-threads")) {
+                int searchThreads = Integer.parseInt(args[++i]);
+                if (searchThreads < 1) {
+                    throw new IllegalArgumentException("The amount of search threads should be at least 1");
                 }
+                searchPool = searchThreads > 1 ? new ForkJoinPool(searchThreads) : null;
+            }
+            else if (arg.equals("--symmetry")) {
+                symmetryBreaking = true;
+            }
+            else if (arg.equals("--decide") || arg.equals("--filters-only")) {
+                decide = true;
+            }
+            else if (arg.equals("--group")) {
+                group = true;
+            }
+            else if (arg.equals("--progress")) {
+                progressSeconds = Double.parseDouble(args[++i]);
+            }
+            else if (arg.equals("--metrics-port")) {
+                metricsPort = Integer.parseInt(args[++i]);
+            }
+            else if (arg.equals("--in-format")) {
+                inFormat = GraphFormat.parse(args[++i]);
+            }
+            else if (arg.equals("--out-format")) {
+                outFormat = GraphFormat.parse(args[++i]);
+            }
+            else if (readingFilters) {
                 if (arg.contains("=")) {
                     arg = arg.replace("=", "");
                     String[] splitFilter = arg.split("-");
@@ -51,145 +159,279 @@ public class Main {
             }
         }
 
-        //The backtracking that will do the calculations
-        BTA testBTA;
+        //The filters as a table, so a graph is checked with a constant amount of array accesses
+        Filters filters = new Filters(filtersListGE, filtersListE);
 
         //The table of the results
-        HashMap<Tuple<Integer, Integer>, Integer> results = new HashMap<>();
-
-        //Printed results
-        HashMap<Tuple<Integer, Integer>, List<Tuple<String, BTA>>> printedResults = new HashMap<>();
+        ResultTable results = new ResultTable();
 
-        int maximumDegreeFound = -1;
-        int maximumInjFound = -1;
+        if (resume && checkpointFile == null) {
+            throw new IllegalArgumentException("--resume needs a checkpoint file (--checkpoint <file>)");
+        }
 
-        //HashMap maxDegree bevat hashmaps per maximale graad
-        HashMap<Integer, HashMap<Integer, Integer>> maxDegree = new HashMap<Integer, HashMap<Integer, Integer>>();
+        //INJECTIEF CHROMATIC NUMBER
+        //Reads from pipe, or from the memory-mapped input file
+        //A DIMACS graph takes several lines, a DIMACS file is read as a stream instead of memory-mapped
+        boolean mapped = inputFile != null && inFormat != GraphFormat.DIMACS;
+        try (FilteredOutput printedResults = new FilteredOutput(filterColoring, outFormat, group);
+             //The mapped file is read without a stream, stdin is only used when there is no input file
+             GraphStream graphs = mapped ? null : new GraphStream(inputFile == null ? System.in : new FileInputStream(inputFile), inFormat);
+             FileReader input = mapped ? new FileReader(inputFile, inFormat) : null;
+             StatsExport stats = statsFile == null ? null : new StatsExport(statsFile);
+             SearchLimits limits = timeoutMillis == 0 && nodeLimit == 0 && unresolvedFile == null ? null
+                     : new SearchLimits(timeoutMillis, nodeLimit, unresolvedFile, resume);
+             CheckpointStore checkpoint = checkpointFile == null ? null : new CheckpointStore(checkpointFile, resume, checkpointInterval);
+             Progress progress = progressSeconds <= 0 && metricsPort < 0 ? null : new Progress()) {
+
+            //Position in the input file of the first graph that has to be processed
+            long start = 0;
+            if (input != null) {
+                input.openMapped(threads);
+            }
 
-        //Keep track of how many graphs are read
-        int amountOfGraphs = 0;
+            //Continue from the progress in the checkpoint file, the graphs processed before are skipped
+            if (checkpoint != null && resume) {
+                results.merge(checkpoint.getRecoveredTable());
+                for (CheckpointStore.Hit hit : checkpoint.getRecoveredHits()) {
+                    addFilteredGraph(printedResults, hit.getGraph6(), hit.getMaxDegree(), hit.getInjChromaticNumber(),
+                            hit.getColoring(), filters);
+                }
+                if (input != null) {
+                    start = input.skipLines(0, checkpoint.getRecoveredGraphs());
+                }
+                else {
+                    graphs.skip(checkpoint.getRecoveredGraphs());
+                }
+            }
 
-        //INJECTIEF CHROMATIC NUMBER
-        //Reads from pipe
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))) {
-            String line = null;
-            while (true) {
-
-                //While there is input
-                if ((line = reader.readLine()) != null) {
-                    testBTA = new BTA(line);
-                    testBTA.calcInjChromaticNumber();
-                    int injNum = testBTA.getInjChromaticNumber();
-                    int maxDeg = testBTA.getMaxDegree();
-
-                    //Put the results in the results list and update max degree and inj
-                    boolean added = false;
-                    for (Tuple<Integer, Integer> result : results.keySet()){
-                        if (result.x == maxDeg && result.y == injNum){
-                            results.put(result, results.get(result) + 1);
-                            added = true;
-                            break;
-                        }
-                    }
-                    if (!added){
-                        results.put(new Tuple<Integer, Integer>(maxDeg, injNum), 1);
-                    }
-
-                    if (maxDeg > maximumDegreeFound){
-                        maximumDegreeFound = maxDeg;
-                    }
-                    if (injNum > maximumInjFound){
-                        maximumInjFound = injNum;
-                    }
-
-                    // For list of greater or equal than filters
-                    boolean addedPrint = false;
-                    for (Tuple<Integer, Integer> filter : filtersListGE){
-                        if (filter.x == maxDeg && filter.y <= injNum){
-                            boolean addedFilter = false;
-                            for (Tuple<Integer, Integer> printedResult: printedResults.keySet()){
-                                if (printedResult.x == maxDeg && printedResult.y == injNum){
-                                    printedResults.get(printedResult).add(new Tuple<>(testBTA.getGraph6Notation(), testBTA));
-                                    addedFilter = true;
-                                    break;
-                                }
-                            }
-                            if (!addedFilter){
-                                Tuple<Integer, Integer> newKey = new Tuple<>(maxDeg, injNum);
-                                printedResults.put(newKey, new ArrayList<>());
-                                printedResults.get(newKey).add(new Tuple<>(testBTA.getGraph6Notation(), testBTA));
-                            }
-                            addedPrint = true;
-                            break;
-                        }
-                    }
-
-                    // For list of equal than filters
-                    if (!addedPrint){
-                        for (Tuple<Integer, Integer> filter : filtersListE){
-                            if (filter.x == maxDeg && filter.y == injNum){
-                                boolean addedFilter = false;
-                                for (Tuple<Integer, Integer> printedResult: printedResults.keySet()){
-                                    if (printedResult.x == maxDeg && printedResult.y == injNum){
-                                        printedResults.get(printedResult).add(new Tuple<>(testBTA.getGraph6Notation(), testBTA));
-                                        addedFilter = true;
-                                        break;
-                                    }
-                                }
-                                if (!addedFilter){
-                                    Tuple<Integer, Integer> newKey = new Tuple<>(maxDeg, injNum);
-                                    printedResults.put(newKey, new ArrayList<>());
-                                    printedResults.get(newKey).add(new Tuple<>(testBTA.getGraph6Notation(), testBTA));
-                                }
-                                break;
-                            }
-                        }
-                    }
-
-                    amountOfGraphs++; //Keeps track of how many graphs we look through
+            //Show the progress while the graphs are processed
+            if (progress != null) {
+                progress.addTable(results);
+                if (progressSeconds > 0) {
+                    progress.printEvery(progressSeconds);
+                }
+                if (metricsPort >= 0) {
+                    progress.serve(metricsPort);
                 }
+            }
 
-                //When input is completely read
+            if (threads > 1) {
+                ParallelRunner runner = new ParallelRunner(threads, !unordered, filters, cache, checkpoint, stats);
+                runner.setLimits(limits);
+                runner.setSearchPool(searchPool);
+                runner.setSymmetryBreaking(symmetryBreaking);
+                runner.setDecide(decide);
+                runner.setProgress(progress);
+                if (input != null) {
+                    runner.run(input, start, results, printedResults);
+                }
                 else {
-                    long threadUserTimeStop = threadBean.getCurrentThreadUserTime();
-                    long duration = (threadUserTimeStop - threadUserTimeStart); //Total calculation time
+                    runner.run(graphs, results, printedResults);
+                }
+            }
+            else if (input != null) {
+                //Read the file chunk by chunk, the graphs are decoded straight from the mapped chunks
+                ResultCache chunkCache = cache;
+                ForkJoinPool chunkSearchPool = searchPool;
+                boolean chunkSymmetryBreaking = symmetryBreaking;
+                boolean chunkDecide = decide;
+                for (long chunkStart = start; chunkStart < input.getFileSize(); ) {
+                    long chunkEnd = input.chunkEnd(chunkStart);
+                    input.forEachGraph(input.mapChunk(chunkStart, chunkEnd), (chunk, offset, length) ->
+                            solveGraph(input.getFormat().toBTA(chunk, offset, length), chunkCache, results, printedResults, filters,
+                                    checkpoint, stats, progress, limits, chunkSearchPool, chunkSymmetryBreaking,
+                                    chunkDecide));
+                    chunkStart = chunkEnd;
+                }
+            }
+            else {
+                byte[] graph;
+                while ((graph = graphs.next()) != null) {
+                    solveGraph(graphs.getFormat().toBTA(graph), cache, results, printedResults, filters, checkpoint, stats, progress, limits, searchPool,
+                            symmetryBreaking, decide);
+                }
+            }
 
-                    //Given the results, make a table ready to be printed
-                    ArrayList<ArrayList<Integer>> table = makeTable(results, maximumDegreeFound, maximumInjFound);
+            //When input is completely read
+            if (progress != null) {
+                progress.stop();
+            }
+            long threadUserTimeStop = threadBean.getCurrentThreadUserTime();
+            long duration = (threadUserTimeStop - threadUserTimeStart) + results.getDuration(); //Total calculation time
 
-                    //Print filtered graphs
-                    printFilteredGraphs(printedResults, filterColoring);
+            //Given the results, make a table ready to be printed
+            ArrayList<ArrayList<Long>> table = makeTable(results);
 
-                    //Report the found results
-                    printResults(duration, amountOfGraphs, table);
-                    break;
-                }
+            //Print the filtered graphs that are not printed yet
+            printedResults.finish();
+
+            //Report the found results
+            //Every graph that was read is counted, also the unresolved graphs and the graphs skipped by --decide
+            printResults(duration, results.getAmountOfGraphs() + results.getUnresolvedGraphs() + results.getSkippedGraphs(),
+                    results.getAmountOfGraphs(), table);
+            if (cache != null) {
+                System.err.println("Cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+            }
+            if (stats != null) {
+                System.err.println("Search: " + stats.getTotal());
+            }
+            if (limits != null) {
+                System.err.println("Unresolved graphs (not in the table): " + results.getUnresolvedGraphs());
+            }
+            if (decide) {
+                System.err.println("Graphs that do not pass the filters (not in the table): " + results.getSkippedGraphs());
             }
         } catch (Exception e) {
             System.err.println(e);
+            System.exit(1);
         }
 
     }
 
     /**
-     * Given the results of the graph, return a table ready for output.
+     * Calculate the injective chromatic number of a graph on the main thread and keep the results.
+     * @param testBTA The backtracking that will do the calculations.
+     * @param cache The cache with the results of graphs seen before, can be null.
+     * @param results The table of the results.
+     * @param printedResults The output of the filtered graphs.
+     * @param filters The filters.
+     * @param checkpoint The checkpoint file the progress is written to, can be null.
+     * @param stats The file the statistics of the search are written to, can be null.
+     * @param progress The progress of the run, can be null.
+     * @param limits The time and node limits of the search, can be null.
+     * @param searchPool The pool the search is split over, can be null.
+     * @param symmetryBreaking True if the symmetries of the graph are broken during the search.
+     * @param decide True if the injective chromatic number is only calculated for the graphs that pass a filter.
      */
-    private static ArrayList<ArrayList<Integer>> makeTable(HashMap<Tuple<Integer, Integer>, Integer> results, int maximumDegreeFound, int maximumInjFound){
-        ArrayList<ArrayList<Integer>> table = new ArrayList<>();
+    private static void solveGraph(BTA testBTA, ResultCache cache, ResultTable results,
+                                   FilteredOutput printedResults, Filters filters, CheckpointStore checkpoint, StatsExport stats,
+                                   Progress progress, SearchLimits limits, ForkJoinPool searchPool, boolean symmetryBreaking, boolean decide) throws IOException {
+        testBTA.setSearchPool(searchPool);
+        testBTA.setSymmetryBreaking(symmetryBreaking);
+        if (stats != null) {
+            testBTA.enableStats();
+        }
+        if (limits != null) {
+            limits.apply(testBTA);
+        }
 
-        //Make an empty table that is big enough to hold all the results
-        for (int i = 1; i < maximumInjFound + 1; i++){
-            table.add(new ArrayList<>());
-            for (int j = 0; j < maximumDegreeFound + 1; j++){
-                table.get(i - 1).add(0);
+        //A graph that does not pass the filters is not put in the table
+        if (!calculate(testBTA, cache, filters, progress, decide)) {
+            results.addSkipped(1);
+            if (stats != null) {
+                stats.add(testBTA.getGraph6Notation(), testBTA.getStats());
+            }
+            if (checkpoint != null) {
+                checkpoint.addSkipped();
+            }
+            return;
+        }
+        if (stats != null) {
+            stats.add(testBTA.getGraph6Notation(), testBTA.getStats());
+        }
+
+        //A graph for which a limit was reached is reported separately and not put in the table
+        if (!testBTA.isResolved()) {
+            results.addUnresolved(1);
+            limits.report(testBTA);
+            if (checkpoint != null) {
+                checkpoint.addUnresolved();
+            }
+            return;
+        }
+        int injNum = testBTA.getInjChromaticNumber();
+        int maxDeg = testBTA.getMaxDegree();
+
+        //Put the results in the results table
+        results.add(maxDeg, injNum);
+
+        //Put the graph in the printed results if it passes a filter
+        boolean filtered = addFilteredGraph(printedResults, testBTA.getGraph6Notation(), maxDeg, injNum,
+                testBTA.getFinalColoring(), filters);
+
+        if (checkpoint != null) {
+            if (filtered) {
+                checkpoint.addHit(new CheckpointStore.Hit(testBTA.getGraph6Notation(), maxDeg, injNum, testBTA.getFinalColoring()));
             }
+            checkpoint.addGraph(maxDeg, injNum);
         }
+    }
 
-        for (Tuple<Integer, Integer> result : results.keySet()){
-            int deg = result.x;
-            int inj = result.y;
+    /**
+     * Calculate the injective chromatic number of a graph, or with decide only as far as the filters need (see
+     * decideFilters()). Every graph is searched once, so it gets the time and node limits once: when a limit is
+     * reached isResolved() is false.
+     * @param testBTA The backtracking of the graph.
+     * @param cache The cache with the results of graphs seen before, can be null. It is not used with decide.
+     * @param filters The filters.
+     * @param progress The progress of the run, can be null.
+     * @param decide True if the injective chromatic number is only calculated for the graphs that pass a filter.
+     * @return False if the graph does not pass the filters and its injective chromatic number is not calculated.
+     */
+    static boolean calculate(BTA testBTA, ResultCache cache, Filters filters, Progress progress, boolean decide) {
+        //The graph is shown as in progress until it is decided
+        if (progress != null) {
+            progress.start(testBTA);
+        }
+        boolean passes = true;
+        if (decide) {
+            passes = decideFilters(testBTA, filters);
+        }
+        else {
+            testBTA.calcInjChromaticNumber(cache);
+        }
+        if (progress != null) {
+            progress.finish();
+        }
+        return passes;
+    }
 
-            table.get(inj - 1).set(deg, results.get(result));
+    /**
+     * Decide if a graph can pass one of the filters, with a search that only calculates the injective chromatic number
+     * exactly between the smallest threshold of the filters for the maximum degree of the graph and the biggest number
+     * that can still pass one of them (see BTA.calcInjChromaticNumber(int, int) and Filters.getHighest()). A graph
+     * with a maximum degree that no filter has is not searched. A graph that passes keeps its injective chromatic
+     * number and coloring, so it does not have to be calculated again.
+     * @param testBTA The backtracking of the graph.
+     * @param filters The filters.
+     * @return True if the graph passes a filter, or if a limit was reached before it was decided.
+     */
+    static boolean decideFilters(BTA testBTA, Filters filters) {
+        int maxDeg = testBTA.getMaxDegree();
+        if (!filters.hasDegree(maxDeg)){
+            return false;
+        }
+
+        //Below the smallest threshold and above the biggest one no filter is passed
+        int injNum = testBTA.calcInjChromaticNumber(filters.getLowest(maxDeg), filters.getHighest(maxDeg));
+        return !testBTA.isResolved() || filters.passes(maxDeg, injNum);
+    }
+
+    /**
+     * Print a graph if it passes one of the filters.
+     * @return True if and only if the graph passes one of the filters.
+     */
+    static boolean addFilteredGraph(FilteredOutput printedResults, String graph6, int maxDeg, int injNum, int[] coloring,
+                                    Filters filters) throws IOException {
+        if (!filters.passes(maxDeg, injNum)) {
+            return false;
+        }
+        printedResults.add(graph6, maxDeg, injNum, coloring);
+        return true;
+    }
+
+    /**
+     * Given the results of the graph, return a table ready for output.
+     */
+    private static ArrayList<ArrayList<Long>> makeTable(ResultTable results){
+        ArrayList<ArrayList<Long>> table = new ArrayList<>();
+
+        //Make a table that is big enough to hold all the results
+        for (int i = 1; i < results.getMaximumInjFound() + 1; i++){
+            table.add(new ArrayList<>());
+            for (int j = 0; j < results.getMaximumDegreeFound() + 1; j++){
+                table.get(i - 1).add(results.getCount(j, i));
+            }
         }
         return table;
     }
@@ -197,9 +439,15 @@ public class Main {
     /**
      * Print the results.
      */
-    private static void printResults(long duration, int amountOfGraphs, ArrayList<ArrayList<Integer>> table) {
+    private static void printResults(long duration, long amountOfGraphs, long graphsInTable, ArrayList<ArrayList<Long>> table) {
         System.err.println("Total time : " + duration /1000000000.0 + " sec");
         System.err.println("Amount of graphs: " + amountOfGraphs);
+        if (graphsInTable != amountOfGraphs) {
+            System.err.println("Graphs in the table: " + graphsInTable);
+        }
+        if (table.isEmpty()) {
+            return;
+        }
 
         System.err.printf("max degree: \t");
 
@@ -212,37 +460,10 @@ public class Main {
         for (int i = 1; i < table.size() + 1; i++){
             //Index of list we are looking at is i - 2, this list has the values for inj = 1
             System.err.printf("inj = " + i + ":\t");
-            for (int j : table.get(i - 1)){
+            for (long j : table.get(i - 1)){
                 System.err.printf(j + "\t");
             }
             System.err.println();
         }
     }
-
-    /**
-    * Print the graphs that are filtered
-     */
-    private static void printFilteredGraphs(HashMap<Tuple<Integer, Integer>, List<Tuple<String, BTA>>> printedResults,  boolean filterColoring){
-        if (!printedResults.isEmpty()){
-            System.err.println("--------------------");
-        }
-        for (Tuple<Integer, Integer> filter : printedResults.keySet()){
-            if (filterColoring) {
-                System.err.println("Filter: max degree = " + filter.x + ", inj = " + filter.y);
-                for (Tuple<String, BTA> result : printedResults.get(filter)){
-                    System.out.printf(result.x);
-                    System.err.printf("\t" + Arrays.toString(result.y.getFinalColoring()));
-                    System.err.println();
-                }
-                System.err.println("--------------------");
-            }
-            else {
-                System.err.println("Filter: max degree = " + filter.x + ", inj = " + filter.y);
-                for (Tuple<String, BTA> result : printedResults.get(filter)) {
-                    System.out.println(result.x);
-                }
-                System.err.println("--------------------");
-            }
-        }
-    }
 }
@@ -0,0 +1,192 @@
+package src;
+
+/**
+ * Backtracking search for graphs with more than 64 vertices. Sets of vertices and sets of colors are stored in
+ * several words: vertex v is bit v % 64 of word v / 64, color c is bit (c - 1) % 64 of word (c - 1) / 64.
+ */
+class MultiWordEngine extends ColoringEngine {
+
+    /**
+     * The number of words in a set of vertices.
+     */
+    private final int words;
+
+    /**
+     * The number of words in a set of colors.
+     */
+    private final int colorWords;
+
+    /**
+     * The injective neighbours of every vertex, vertex v uses the words v * words until (v + 1) * words.
+     */
+    private final long[] injNeighbours;
+
+    /**
+     * The colors every vertex is not allowed to get anymore, vertex v uses the words v * colorWords until
+     * (v + 1) * colorWords.
+     */
+    private final long[] colorRestrictions;
+
+    /**
+     * The vertices that do not have a color yet.
+     */
+    private final long[] uncolored;
+
+    /**
+     * For every depth of the backtracking the vertices that got a new restriction when coloring at that depth,
+     * depth d uses the words d * words until (d + 1) * words.
+     */
+    private final long[] trail;
+
+    /**
+     * The saturation degree (number of colors it is not allowed to get) of every vertex.
+     */
+    private final int[] saturation;
+
+    /**
+     * The uncolored vertices grouped by saturation degree, bucket s uses the words s * words until (s + 1) * words.
+     */
+    private final long[] buckets;
+
+    /**
+     * The number of vertices in every bucket.
+     */
+    private final int[] bucketSize;
+
+    /**
+     * An upper bound for the biggest saturation degree of an uncolored vertex.
+     */
+    private int maxSaturation = 0;
+
+    /**
+     * Constructor for a new multi word engine.
+     * @param dimension The number of vertices in the graph.
+     * @param words The number of words used per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours of every vertex.
+     */
+    MultiWordEngine(int dimension, int words, long[] injNeighbours){
+        super(dimension);
+        this.words = words;
+        this.colorWords = words;
+        this.injNeighbours = injNeighbours;
+        this.colorRestrictions = new long[dimension * colorWords];
+        this.uncolored = new long[words];
+        this.trail = new long[(dimension + 1) * words];
+        this.saturation = new int[dimension];
+        this.buckets = new long[(dimension + 1) * words];
+        this.bucketSize = new int[dimension + 1];
+        for (int v = 0; v < dimension; v++){
+            uncolored[v >>> 6] |= 1L << v;
+            buckets[v >>> 6] |= 1L << v;
+        }
+        bucketSize[0] = dimension;
+    }
+
+    /**
+     * Check if a vertex is not allowed to get a color.
+     */
+    private boolean isRestricted(int vertex, int c){
+        return (colorRestrictions[vertex * colorWords + ((c - 1) >>> 6)] & (1L << (c - 1))) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ties are broken by the number of uncolored injective neighbours, then by the smallest index.
+     */
+    @Override
+    protected int calcNextVertex(){
+        while (maxSaturation > 0 && bucketSize[maxSaturation] == 0){
+            maxSaturation--;
+        }
+        if (bucketSize[maxSaturation] == 0){
+            return -1;
+        }
+        int result = -1;
+        int degree = -1;
+        int offset = maxSaturation * words;
+        for (int w = 0; w < words; w++){
+            for (long candidates = buckets[offset + w]; candidates != 0; candidates &= candidates - 1){
+                int i = (w << 6) + Long.numberOfTrailingZeros(candidates);
+                if (bucketSize[maxSaturation] == 1){
+                    return i;
+                }
+                int tempDegree = 0;
+                for (int nw = 0; nw < words; nw++){
+                    tempDegree += Long.bitCount(injNeighbours[i * words + nw] & uncolored[nw]);
+                }
+                if (tempDegree > degree){
+                    degree = tempDegree;
+                    result = i;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Move an uncolored vertex from one bucket to another.
+     */
+    private void moveBucket(int vertex, int from, int to){
+        buckets[from * words + (vertex >>> 6)] &= ~(1L << vertex);
+        bucketSize[from]--;
+        buckets[to * words + (vertex >>> 6)] |= 1L << vertex;
+        bucketSize[to]++;
+        if (to > maxSaturation){
+            maxSaturation = to;
+        }
+    }
+
+    @Override
+    protected int nextColor(int vertex, int previous, int maxColor){
+        for (int c = previous + 1; c <= maxColor; c++){
+            if (!isRestricted(vertex, c)){
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    protected void updateRestrictionsInj(int vertex, int c, int depth){
+        color[vertex] = c;
+        uncolored[vertex >>> 6] &= ~(1L << vertex);
+        buckets[saturation[vertex] * words + (vertex >>> 6)] &= ~(1L << vertex);
+        bucketSize[saturation[vertex]]--;
+        int colorWord = (c - 1) >>> 6;
+        long colorBit = 1L << (c - 1);
+        int offset = depth * words;
+        for (int w = 0; w < words; w++){
+            long bits = 0;
+            for (long nb = injNeighbours[vertex * words + w] & uncolored[w]; nb != 0; nb &= nb - 1){
+                int i = (w << 6) + Long.numberOfTrailingZeros(nb);
+                if ((colorRestrictions[i * colorWords + colorWord] & colorBit) == 0){
+                    colorRestrictions[i * colorWords + colorWord] |= colorBit;
+                    bits |= 1L << i;
+                    moveBucket(i, saturation[i], ++saturation[i]);
+                }
+            }
+            trail[offset + w] = bits;
+        }
+    }
+
+    @Override
+    protected void resetBitsets(int vertex, int c, int depth){
+        int colorWord = (c - 1) >>> 6;
+        long colorMask = ~(1L << (c - 1));
+        int offset = depth * words;
+        for (int w = 0; w < words; w++){
+            for (long bits = trail[offset + w]; bits != 0; bits &= bits - 1){
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                colorRestrictions[i * colorWords + colorWord] &= colorMask;
+                moveBucket(i, saturation[i], --saturation[i]);
+            }
+        }
+        color[vertex] = 0;
+        uncolored[vertex >>> 6] |= 1L << vertex;
+        buckets[saturation[vertex] * words + (vertex >>> 6)] |= 1L << vertex;
+        bucketSize[saturation[vertex]]++;
+        if (saturation[vertex] > maxSaturation){
+            maxSaturation = saturation[vertex];
+        }
+    }
+}
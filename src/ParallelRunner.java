@@ -0,0 +1,415 @@
+package src;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Class that calculates the injective chromatic number of a stream of graphs on multiple threads.
+ * A reader thread fills bounded batches of graphs (or splits a memory-mapped file in chunks), the worker threads
+ * run the backtracking algorithm on them and the calling thread collects the filtered graphs, in the order of the input
+ * unless asked otherwise.
+ */
+public class ParallelRunner {
+
+    /**
+     * The amount of graphs in one batch.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * A batch of graphs (see GraphStream.next()), index is the position of the batch in the input. When a
+     * memory-mapped file is read, graphs is null and the batch is the chunk of the file from start until end.
+     */
+    private static class Batch {
+        private final long index;
+        private final List<byte[]> graphs;
+        private long start;
+        private long end;
+
+        private Batch(long index, List<byte[]> graphs) {
+            this.index = index;
+            this.graphs = graphs;
+        }
+    }
+
+    /**
+     * The result of a batch: the graphs of the batch that pass one of the filters and the graphs that were not resolved
+     * within the limits, in the order of the input.
+     * The reader sends a result with index -1 containing the total amount of batches when the input is read.
+     */
+    private static class BatchResult {
+        private final long index;
+        private final List<BTA> filtered;
+        private final List<BTA> unresolved = new ArrayList<>();
+        private long amountOfBatches;
+        private Throwable exception;
+
+        /**
+         * The results of the graphs in this batch, only kept when a checkpoint file is used.
+         */
+        private ResultTable table;
+
+        private BatchResult(long index, List<BTA> filtered) {
+            this.index = index;
+            this.filtered = filtered;
+        }
+    }
+
+    /**
+     * Batch that tells a worker that there is no more input.
+     */
+    private static final Batch POISON = new Batch(-1, Collections.emptyList());
+
+    /**
+     * The amount of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * True if the filtered graphs have to be collected in the order of the input.
+     */
+    private final boolean ordered;
+
+    private final Filters filters;
+
+    /**
+     * The cache shared by all workers, null if no cache is used.
+     */
+    private final ResultCache cache;
+
+    /**
+     * The checkpoint file the progress is written to, null if no checkpoint is kept.
+     */
+    private final CheckpointStore checkpoint;
+
+    /**
+     * The file the statistics of the search are written to, null if no statistics are kept.
+     */
+    private final StatsExport stats;
+
+    /**
+     * The time and node limits of the search, null if there are none.
+     */
+    private SearchLimits limits = null;
+
+    /**
+     * Set the time and node limits of the search of every graph.
+     * @param limits The limits, the unresolved graphs are reported when the results are collected. Can be null.
+     */
+    public void setLimits(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * The pool the search of one graph is split over, null if every graph is searched by one worker.
+     */
+    private ForkJoinPool searchPool = null;
+
+    /**
+     * Split the search of every graph over the given pool as well, for streams with big graphs.
+     * @param searchPool The pool, can be null.
+     */
+    public void setSearchPool(ForkJoinPool searchPool) {
+        this.searchPool = searchPool;
+    }
+
+    /**
+     * True if the symmetries of every graph are broken during the search.
+     */
+    private boolean symmetryBreaking = false;
+
+    public void setSymmetryBreaking(boolean symmetryBreaking) {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * True if the injective chromatic number is only calculated for the graphs that pass a filter, see
+     * Main.decideFilters().
+     */
+    private boolean decide = false;
+
+    public void setDecide(boolean decide) {
+        this.decide = decide;
+    }
+
+    /**
+     * The progress of the run, null if it is not shown. The tables of the workers are added to it while they run.
+     */
+    private Progress progress = null;
+
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Constructor for a new parallel runner.
+     * @param threads The amount of worker threads.
+     * @param ordered True if the filtered graphs have to be collected in the order of the input.
+     * @param filters The filters.
+     * @param cache The cache shared by all workers, null if no cache is used.
+     * @param checkpoint The checkpoint file the progress is written to, null if no checkpoint is kept. A checkpoint
+     *                   keeps the progress of a prefix of the input, so the results are always collected in order.
+     * @param stats The file the statistics of the search are written to, null if no statistics are kept. The workers
+     *              write the statistics themselves, in the order the graphs are finished.
+     */
+    public ParallelRunner(int threads, boolean ordered, Filters filters, ResultCache cache, CheckpointStore checkpoint,
+                          StatsExport stats) {
+        this.threads = threads;
+        this.ordered = ordered || checkpoint != null;
+        this.checkpoint = checkpoint;
+        this.filters = filters;
+        this.cache = cache;
+        this.stats = stats;
+    }
+
+    /**
+     * Read all graphs from the stream, calculate their injective chromatic number and collect the results.
+     * @param graphs The stream containing the graphs.
+     * @param table The table the results of all the workers are merged into.
+     * @param printedResults The output of the filtered graphs.
+     */
+    public void run(GraphStream graphs, ResultTable table,
+                    FilteredOutput printedResults) throws Exception {
+        run(null, 0, graphs, table, printedResults);
+    }
+
+    /**
+     * Read all graphs from a memory-mapped file, calculate their injective chromatic number and collect the results.
+     * The workers decode the graphs straight from the mapped chunks.
+     * @param input The input file, opened with openMapped().
+     * @param start The position in the file of the first graph.
+     * @param table The table the results of all the workers are merged into.
+     * @param printedResults The output of the filtered graphs.
+     */
+    public void run(FileReader input, long start, ResultTable table,
+                    FilteredOutput printedResults) throws Exception {
+        run(input, start, null, table, printedResults);
+    }
+
+    private void run(FileReader input, long start, GraphStream graphs, ResultTable table,
+                     FilteredOutput printedResults) throws Exception {
+        //At most this amount of batches can be read but not yet collected, so memory stays bounded
+        Semaphore inFlight = new Semaphore(threads * 4);
+        BlockingQueue<Batch> work = new ArrayBlockingQueue<>(threads * 2);
+        BlockingQueue<BatchResult> done = new LinkedBlockingQueue<>();
+        ResultTable[] workerTables = new ResultTable[threads];
+        Thread[] workers = new Thread[threads];
+        GraphFormat format = input != null ? input.getFormat() : graphs.getFormat();
+
+        for (int w = 0; w < threads; w++) {
+            ResultTable workerTable = new ResultTable();
+            workerTables[w] = workerTable;
+            if (progress != null) {
+                progress.addTable(workerTable);
+            }
+            workers[w] = new Thread(() -> work(input, format, work, done, workerTable), "worker-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+
+        ResultTable readerTable = new ResultTable();
+        Thread readerThread = new Thread(() -> read(input, start, graphs, inFlight, work, done, readerTable), "reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        //Collect the results, in order of the input if needed
+        HashMap<Long, BatchResult> pending = new HashMap<>();
+        long amountOfBatches = -1;
+        long collected = 0;
+        while (amountOfBatches == -1 || collected < amountOfBatches) {
+            BatchResult result = done.take();
+            if (result.exception instanceof Error) {
+                throw (Error) result.exception;
+            }
+            if (result.exception != null) {
+                throw (Exception) result.exception;
+            }
+            if (result.index == -1) {
+                amountOfBatches = result.amountOfBatches;
+            }
+            else if (!ordered) {
+                collect(result, table, printedResults);
+                inFlight.release();
+                collected++;
+            }
+            else {
+                pending.put(result.index, result);
+                while (pending.containsKey(collected)) {
+                    collect(pending.remove(collected), table, printedResults);
+                    inFlight.release();
+                    collected++;
+                }
+            }
+        }
+
+        //Merge the tables of all workers
+        for (int w = 0; w < threads; w++) {
+            work.put(POISON);
+        }
+        for (int w = 0; w < threads; w++) {
+            workers[w].join();
+            if (progress != null) {
+                progress.removeTable(workerTables[w]);
+            }
+            table.merge(workerTables[w]);
+        }
+        readerThread.join();
+        table.merge(readerTable);
+    }
+
+    /**
+     * Read the input in batches and hand them to the workers. A memory-mapped file is only split in chunks, the
+     * workers read the chunks themselves.
+     */
+    private void read(FileReader input, long start, GraphStream graphs, Semaphore inFlight,
+                      BlockingQueue<Batch> work, BlockingQueue<BatchResult> done, ResultTable readerTable) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long threadUserTimeStart = threadBean.getCurrentThreadUserTime();
+        long index = 0;
+        try {
+            if (input != null) {
+                for (long chunkStart = start; chunkStart < input.getFileSize(); ) {
+                    Batch batch = new Batch(index++, null);
+                    batch.start = chunkStart;
+                    batch.end = input.chunkEnd(chunkStart);
+                    inFlight.acquire();
+                    work.put(batch);
+                    chunkStart = batch.end;
+                }
+            }
+            else {
+                byte[] graph;
+                List<byte[]> batchGraphs = new ArrayList<>(BATCH_SIZE);
+                while ((graph = graphs.next()) != null) {
+                    batchGraphs.add(graph);
+                    if (batchGraphs.size() == BATCH_SIZE) {
+                        inFlight.acquire();
+                        work.put(new Batch(index++, batchGraphs));
+                        batchGraphs = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batchGraphs.isEmpty()) {
+                    inFlight.acquire();
+                    work.put(new Batch(index++, batchGraphs));
+                }
+            }
+            BatchResult end = new BatchResult(-1, null);
+            end.amountOfBatches = index;
+            readerTable.addDuration(threadBean.getCurrentThreadUserTime() - threadUserTimeStart);
+            done.put(end);
+        } catch (IOException | InterruptedException | RuntimeException | Error e) {
+            BatchResult error = new BatchResult(-1, null);
+            error.exception = e;
+            done.add(error);
+        }
+    }
+
+    /**
+     * Calculate the injective chromatic number of the graphs in the batches until there is no more input.
+     */
+    private void work(FileReader input, GraphFormat format, BlockingQueue<Batch> work, BlockingQueue<BatchResult> done,
+                      ResultTable workerTable) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long threadUserTimeStart = threadBean.getCurrentThreadUserTime();
+        try {
+            while (true) {
+                Batch batch = work.take();
+                if (batch == POISON) {
+                    break;
+                }
+                BatchResult result = new BatchResult(batch.index, new ArrayList<>());
+                if (checkpoint != null) {
+                    result.table = new ResultTable();
+                    if (progress != null) {
+                        progress.addTable(result.table);
+                    }
+                }
+                ResultTable batchTable = result.table != null ? result.table : workerTable;
+                try {
+                    if (batch.graphs == null) {
+                        input.forEachGraph(input.mapChunk(batch.start, batch.end), (chunk, offset, length) ->
+                                solve(format.toBTA(chunk, offset, length), result, batchTable));
+                    }
+                    else {
+                        for (byte[] graph : batch.graphs) {
+                            solve(format.toBTA(graph), result, batchTable);
+                        }
+                    }
+                } catch (Exception | Error e) {
+                    //An error (for example OutOfMemoryError) is passed on as well, otherwise the collector waits for
+                    //this batch forever
+                    result.exception = e;
+                }
+                done.put(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workerTable.addDuration(threadBean.getCurrentThreadUserTime() - threadUserTimeStart);
+    }
+
+    /**
+     * Calculate the injective chromatic number of a graph, add it to the table and keep it if it passes a filter.
+     */
+    private void solve(BTA testBTA, BatchResult result, ResultTable batchTable) {
+        if (stats != null) {
+            testBTA.enableStats();
+        }
+        if (limits != null) {
+            limits.apply(testBTA);
+        }
+        testBTA.setSearchPool(searchPool);
+        testBTA.setSymmetryBreaking(symmetryBreaking);
+
+        if (!Main.calculate(testBTA, cache, filters, progress, decide)) {
+            batchTable.addSkipped(1);
+            if (stats != null) {
+                stats.add(testBTA.getGraph6Notation(), testBTA.getStats());
+            }
+            return;
+        }
+        if (stats != null) {
+            stats.add(testBTA.getGraph6Notation(), testBTA.getStats());
+        }
+        if (!testBTA.isResolved()) {
+            batchTable.addUnresolved(1);
+            result.unresolved.add(testBTA);
+            return;
+        }
+        int injNum = testBTA.getInjChromaticNumber();
+        int maxDeg = testBTA.getMaxDegree();
+        batchTable.add(maxDeg, injNum);
+        if (filters.passes(maxDeg, injNum)) {
+            result.filtered.add(testBTA);
+        }
+    }
+
+    /**
+     * Add the filtered graphs of a batch to the printed results, report the unresolved graphs and write the progress
+     * to the checkpoint file.
+     */
+    private void collect(BatchResult result, ResultTable table,
+                         FilteredOutput printedResults) throws IOException {
+        for (BTA testBTA : result.filtered) {
+            Main.addFilteredGraph(printedResults, testBTA.getGraph6Notation(), testBTA.getMaxDegree(),
+                    testBTA.getInjChromaticNumber(), testBTA.getFinalColoring(), filters);
+            if (checkpoint != null) {
+                checkpoint.addHit(new CheckpointStore.Hit(testBTA.getGraph6Notation(), testBTA.getMaxDegree(),
+                        testBTA.getInjChromaticNumber(), testBTA.getFinalColoring()));
+            }
+        }
+        for (BTA testBTA : result.unresolved) {
+            limits.report(testBTA);
+        }
+        if (checkpoint != null) {
+            if (progress != null) {
+                progress.removeTable(result.table);
+            }
+            table.merge(result.table);
+            checkpoint.addGraphs(result.table);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package src;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that shows the progress of a long run: a line on stderr every few seconds (--progress) and/or the metrics in
+ * the Prometheus text format on http://localhost:PORT/metrics (--metrics-port). The amount of graphs and the table
+ * are read from the ResultTables the threads fill (see ResultTable.getCount()), the search nodes are counted in a
+ * LongAdder and every thread puts the graph it is working on in a concurrent map, so the workers never wait for the
+ * progress to be read.
+ */
+public class Progress implements Closeable {
+
+    /**
+     * The graph6 notation of the slowest graph is cut off after this amount of characters.
+     */
+    private static final int GRAPH6_SHOWN = 64;
+
+    /**
+     * A graph that a thread is working on.
+     */
+    private static class Running {
+        private final BTA graph;
+        private final long startNanos;
+        private String graph6 = null;
+
+        private Running(BTA graph, long startNanos) {
+            this.graph = graph;
+            this.startNanos = startNanos;
+        }
+    }
+
+    /**
+     * The tables the results are added to, the amount of graphs processed is the sum of them.
+     */
+    private final List<ResultTable> tables = new CopyOnWriteArrayList<>();
+
+    /**
+     * The graphs the threads are working on.
+     */
+    private final ConcurrentHashMap<Thread, Running> running = new ConcurrentHashMap<>();
+
+    /**
+     * The search nodes of all graphs.
+     */
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * The value of System.nanoTime() when the run started.
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * The amount of graphs, search nodes and the time at the last progress line, for the rates since then.
+     */
+    private long lastGraphs = 0;
+    private long lastNodes = 0;
+    private long lastNanos = startNanos;
+
+    /**
+     * The thread that writes the progress lines, null if they are not written.
+     */
+    private ScheduledExecutorService timer = null;
+
+    /**
+     * The metrics server, null if there is none.
+     */
+    private HttpServer server = null;
+
+    /**
+     * Write a progress line to stderr every given amount of seconds.
+     */
+    public void printEvery(double seconds) {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, (long) (seconds * 1000));
+        //An exception would stop the timer, the next line is tried anyway
+        timer.scheduleAtFixedRate(() -> {
+            try {
+                System.err.println(line());
+            } catch (RuntimeException e) {
+                System.err.println(e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Serve the metrics on http://localhost:port/metrics, only to the local machine.
+     */
+    public void serve(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = metrics().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Count the results added to the given table as processed graphs.
+     */
+    public void addTable(ResultTable table) {
+        tables.add(table);
+    }
+
+    /**
+     * Stop counting the results of the given table, for example because it is merged into another table.
+     */
+    public void removeTable(ResultTable table) {
+        tables.remove(table);
+    }
+
+    /**
+     * The current thread starts working on the given graph, its search nodes are counted.
+     */
+    public void start(BTA graph) {
+        graph.setNodeCounter(nodes);
+        running.put(Thread.currentThread(), new Running(graph, System.nanoTime()));
+    }
+
+    /**
+     * The current thread is done with its graph.
+     */
+    public void finish() {
+        running.remove(Thread.currentThread());
+    }
+
+    /**
+     * Returns the amount of graphs processed: added to a table, unresolved or skipped.
+     */
+    private long graphs() {
+        long graphs = 0;
+        for (ResultTable table : tables) {
+            graphs += table.getAmountOfGraphs() + table.getUnresolvedGraphs() + table.getSkippedGraphs();
+        }
+        return graphs;
+    }
+
+    /**
+     * Returns the graph that a thread has been working on the longest, null if no thread is working.
+     */
+    private Map.Entry<Thread, Running> slowest() {
+        Map.Entry<Thread, Running> slowest = null;
+        for (Map.Entry<Thread, Running> entry : running.entrySet()) {
+            if (slowest == null || entry.getValue().startNanos - slowest.getValue().startNanos < 0) {
+                slowest = entry;
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * Returns the (shortened) graph6 notation of a running graph, it is encoded only once.
+     */
+    private synchronized String graph6(Running graph) {
+        if (graph.graph6 == null) {
+            String graph6 = graph.graph.getGraph6Notation();
+            graph.graph6 = graph6.length() > GRAPH6_SHOWN ? graph6.substring(0, GRAPH6_SHOWN) + "..." : graph6;
+        }
+        return graph.graph6;
+    }
+
+    /**
+     * Returns the progress line: the graphs processed, the graphs and search nodes per second since the last line and
+     * the graph that a thread has been working on the longest.
+     */
+    private synchronized String line() {
+        long now = System.nanoTime();
+        long graphs = graphs();
+        long searched = nodes.sum();
+        double seconds = Math.max(now - lastNanos, 1) / 1e9;
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "Progress: %d graphs in %.0f sec, %.1f graphs/sec, %.0f nodes/sec", graphs, (now - startNanos) / 1e9,
+                (graphs - lastGraphs) / seconds, (searched - lastNodes) / seconds));
+        lastGraphs = graphs;
+        lastNodes = searched;
+        lastNanos = now;
+        Map.Entry<Thread, Running> slowest = slowest();
+        if (slowest != null) {
+            line.append(String.format(Locale.ROOT, ", slowest: %s on %s for %.1f sec (%d vertices)",
+                    graph6(slowest.getValue()), slowest.getKey().getName(),
+                    (now - slowest.getValue().startNanos) / 1e9, slowest.getValue().graph.getDimension()));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Returns the metrics in the Prometheus text format. The rates are left to the server (rate() of the counters).
+     */
+    private String metrics() {
+        long now = System.nanoTime();
+        StringBuilder metrics = new StringBuilder();
+        metrics.append("# HELP injchrom_graphs_processed_total Graphs processed (in the table, unresolved or skipped).\n");
+        metrics.append("# TYPE injchrom_graphs_processed_total counter\n");
+        metrics.append("injchrom_graphs_processed_total ").append(graphs()).append('\n');
+        metrics.append("# HELP injchrom_search_nodes_total Search nodes of the backtracking of all graphs.\n");
+        metrics.append("# TYPE injchrom_search_nodes_total counter\n");
+        metrics.append("injchrom_search_nodes_total ").append(nodes.sum()).append('\n');
+        metrics.append("# HELP injchrom_uptime_seconds Time since the start of the run.\n");
+        metrics.append("# TYPE injchrom_uptime_seconds gauge\n");
+        metrics.append(String.format(Locale.ROOT, "injchrom_uptime_seconds %.3f%n", (now - startNanos) / 1e9));
+
+        metrics.append("# HELP injchrom_running_graphs Graphs that a thread is working on.\n");
+        metrics.append("# TYPE injchrom_running_graphs gauge\n");
+        metrics.append("injchrom_running_graphs ").append(running.size()).append('\n');
+        Map.Entry<Thread, Running> slowest = slowest();
+        //Only the amount of vertices is a label, a label with the graph6 notation would make a new series for every graph
+        if (slowest != null) {
+            metrics.append("# HELP injchrom_slowest_graph_seconds Time the slowest running graph has been searched.\n");
+            metrics.append("# TYPE injchrom_slowest_graph_seconds gauge\n");
+            metrics.append(String.format(Locale.ROOT, "injchrom_slowest_graph_seconds{vertices=\"%d\"} %.3f%n",
+                    slowest.getValue().graph.getDimension(), (now - slowest.getValue().startNanos) / 1e9));
+        }
+
+        //The table so far, the sum of the tables of all threads
+        int maxDeg = -1;
+        int maxInj = -1;
+        for (ResultTable table : tables) {
+            maxDeg = Math.max(maxDeg, table.getMaximumDegreeFound());
+            maxInj = Math.max(maxInj, table.getMaximumInjFound());
+        }
+        metrics.append("# HELP injchrom_graphs_total Graphs in the table per maximum degree and injective chromatic number.\n");
+        metrics.append("# TYPE injchrom_graphs_total counter\n");
+        for (int k = 0; k <= maxInj; k++) {
+            for (int d = 0; d <= maxDeg; d++) {
+                long count = 0;
+                for (ResultTable table : tables) {
+                    count += table.getCount(d, k);
+                }
+                if (count != 0) {
+                    metrics.append("injchrom_graphs_total{max_degree=\"").append(d).append("\",inj=\"").append(k)
+                            .append("\"} ").append(count).append('\n');
+                }
+            }
+        }
+        return metrics.toString();
+    }
+
+    /**
+     * Stop writing progress lines and stop the metrics server.
+     */
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+}
@@ -0,0 +1,154 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class that reduces the graph of the injective neighbours before the backtracking.
+ * A vertex with less injective neighbours than the lower bound can always be colored last: whatever colors its
+ * neighbours get, one of the first lowerBound colors is still free. These vertices are removed one by one (removing a
+ * vertex can lower the degree of its neighbours), what is left (the core) is split in connected components. The
+ * injective chromatic number is the maximum of the lower bound and the injective chromatic numbers of the components,
+ * which are colored independently. The removed vertices are colored greedily afterwards, in the reverse order.
+ */
+class Reduction {
+
+    /**
+     * The removed vertices, in the order they were removed.
+     */
+    private final int[] removed;
+
+    /**
+     * The connected components of the core, the biggest component first. The vertices of a component are sorted.
+     */
+    private final List<int[]> components = new ArrayList<>();
+
+    public int[] getRemoved(){
+        return removed;
+    }
+
+    public List<int[]> getComponents(){
+        return components;
+    }
+
+    /**
+     * Constructor that reduces the graph.
+     * @param dimension The number of vertices in the graph.
+     * @param words The number of words used per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours, vertex v uses the words v * words until (v + 1) * words.
+     * @param lowerBound A lower bound for the injective chromatic number.
+     */
+    Reduction(int dimension, int words, long[] injNeighbours, int lowerBound){
+        int[] degrees = new int[dimension];
+        int[] queue = new int[dimension];
+        long[] core = new long[words];
+        int size = 0;
+        for (int v = 0; v < dimension; v++){
+            for (int w = 0; w < words; w++){
+                degrees[v] += Long.bitCount(injNeighbours[v * words + w]);
+            }
+            if (degrees[v] < lowerBound){
+                queue[size++] = v;
+            }
+            else {
+                core[v >>> 6] |= 1L << v;
+            }
+        }
+
+        //Removing a vertex lowers the degree of its neighbours in the core
+        for (int i = 0; i < size; i++){
+            int v = queue[i];
+            for (int w = 0; w < words; w++){
+                for (long nb = injNeighbours[v * words + w] & core[w]; nb != 0; nb &= nb - 1){
+                    int u = (w << 6) + Long.numberOfTrailingZeros(nb);
+                    if (--degrees[u] < lowerBound){
+                        core[w] &= ~(1L << u);
+                        queue[size++] = u;
+                    }
+                }
+            }
+        }
+        removed = Arrays.copyOf(queue, size);
+
+        //Split the core in connected components
+        long[] unvisited = core.clone();
+        int[] component = new int[dimension];
+        for (int w = 0; w < words; w++){
+            while (unvisited[w] != 0){
+                int start = (w << 6) + Long.numberOfTrailingZeros(unvisited[w]);
+                unvisited[w] &= ~(1L << start);
+                int count = 0;
+                component[count++] = start;
+                for (int i = 0; i < count; i++){
+                    int v = component[i];
+                    for (int k = 0; k < words; k++){
+                        for (long nb = injNeighbours[v * words + k] & unvisited[k]; nb != 0; nb &= nb - 1){
+                            component[count++] = (k << 6) + Long.numberOfTrailingZeros(nb);
+                        }
+                        unvisited[k] &= ~injNeighbours[v * words + k];
+                    }
+                }
+                int[] vertices = Arrays.copyOf(component, count);
+                Arrays.sort(vertices);
+                components.add(vertices);
+            }
+        }
+        components.sort((a, b) -> Integer.compare(b.length, a.length));
+    }
+
+    /**
+     * Returns true if the graph got smaller or was split, false if the core is the whole graph.
+     */
+    public boolean isReduced(){
+        return removed.length > 0 || components.size() > 1;
+    }
+
+    /**
+     * Returns the injective neighbours of the subgraph induced by a component, the vertex vertices[i] of the graph is
+     * vertex i of the subgraph.
+     * @param vertices The sorted vertices of the component.
+     * @param words The number of words used per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours of the graph.
+     * @return The injective neighbours of the subgraph, vertex i uses the words i * Graph6.words(vertices.length)
+     *         until (i + 1) * Graph6.words(vertices.length).
+     */
+    public static long[] induce(int[] vertices, int words, long[] injNeighbours){
+        int subWords = Graph6.words(vertices.length);
+        long[] result = new long[vertices.length * subWords];
+        for (int i = 0; i < vertices.length; i++){
+            for (int j = 0; j < vertices.length; j++){
+                int u = vertices[j];
+                if ((injNeighbours[vertices[i] * words + (u >>> 6)] & (1L << u)) != 0){
+                    result[i * subWords + (j >>> 6)] |= 1L << j;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Color the removed vertices greedily, in the reverse order of removal. Every removed vertex has less than
+     * lowerBound colored injective neighbours when it gets its color, so it gets one of the first lowerBound colors.
+     * @param words The number of words used per vertex in injNeighbours.
+     * @param injNeighbours The injective neighbours of the graph.
+     * @param coloring A coloring of the core, the removed vertices have color 0. The removed vertices are colored.
+     */
+    public void colorRemoved(int words, long[] injNeighbours, int[] coloring){
+        //used[c] == i + 1 if color c is used by a neighbour of the i-th removed vertex
+        int[] used = new int[coloring.length + 2];
+        for (int i = removed.length - 1; i >= 0; i--){
+            int v = removed[i];
+            for (int w = 0; w < words; w++){
+                for (long nb = injNeighbours[v * words + w]; nb != 0; nb &= nb - 1){
+                    used[coloring[(w << 6) + Long.numberOfTrailingZeros(nb)]] = i + 1;
+                }
+            }
+            int c = 1;
+            while (used[c] == i + 1){
+                c++;
+            }
+            coloring[v] = c;
+        }
+    }
+}
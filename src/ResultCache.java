@@ -0,0 +1,102 @@
+package src;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class that remembers the results of the backtracking algorithm for graphs that were already seen, so isomorphic or
+ * repeated graphs do not have to be solved again. The graphs are identified by their canonical form, when the cache is
+ * full the least recently used graph is removed. The cache can be shared by several threads.
+ */
+public class ResultCache {
+
+    /**
+     * The result of the backtracking algorithm for one graph, the coloring uses the canonical labels.
+     */
+    public static class Entry {
+        private final int maxDegree;
+        private final int injChromaticNumber;
+        private final int[] coloring;
+
+        public Entry(int maxDegree, int injChromaticNumber, int[] coloring) {
+            this.maxDegree = maxDegree;
+            this.injChromaticNumber = injChromaticNumber;
+            this.coloring = coloring;
+        }
+
+        public int getMaxDegree() {
+            return maxDegree;
+        }
+
+        public int getInjChromaticNumber() {
+            return injChromaticNumber;
+        }
+
+        public int[] getColoring() {
+            return coloring;
+        }
+    }
+
+    /**
+     * The cached results, in order of last use.
+     */
+    private final LinkedHashMap<CanonicalForm, Entry> entries;
+
+    /**
+     * The amount of graphs that were found in the cache.
+     */
+    private long hits = 0;
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * The amount of graphs that were not found in the cache.
+     */
+    private long misses = 0;
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Constructor for a new cache.
+     * @param capacity The maximum amount of graphs in the cache.
+     */
+    public ResultCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The size of the cache should be at least 1");
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CanonicalForm, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of a graph, null if the graph is not in the cache.
+     * @param form The canonical form of the graph.
+     */
+    public synchronized Entry get(CanonicalForm form) {
+        Entry entry = entries.get(form);
+        if (entry == null) {
+            misses++;
+        }
+        else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Add the result of a graph to the cache.
+     * @param form The canonical form of the graph.
+     * @param entry The result of the graph.
+     */
+    public synchronized void put(CanonicalForm form, Entry entry) {
+        entries.put(form, entry);
+    }
+}
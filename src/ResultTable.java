@@ -0,0 +1,200 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that keeps the table of results (how many graphs were found for every maximum degree and injective
+ * chromatic number). The table is a dense matrix of counters indexed by the injective chromatic number and the maximum
+ * degree, so adding a graph is one array access.
+ * Every thread keeps its own table, like the cells of a LongAdder: only the thread that owns a table adds to it, so no
+ * locks or atomic read-modify-writes are needed, and the tables are merged at the end. The counters are published with
+ * ordered writes, so another thread can read the table at any time (see getCount()) and gets slightly old but
+ * consistent counts.
+ */
+public class ResultTable {
+
+    /**
+     * The size the matrix starts with, it grows when a bigger maximum degree or injective chromatic number is added.
+     */
+    private static final int INITIAL_SIZE = 16;
+
+    /**
+     * The counters, the amount of graphs with maximum degree d and injective chromatic number k is at
+     * k * columns + d.
+     */
+    private static class Matrix {
+        private final AtomicLongArray cells;
+        private final int columns;
+        private final int rows;
+
+        private Matrix(int columns, int rows) {
+            cells = new AtomicLongArray(columns * rows);
+            this.columns = columns;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * The matrix of counters, it is replaced by a bigger one when needed.
+     */
+    private volatile Matrix counts = new Matrix(INITIAL_SIZE, INITIAL_SIZE);
+
+    /**
+     * The largest maximum degree found, initialized at -1.
+     */
+    private volatile int maximumDegreeFound = -1;
+
+    public int getMaximumDegreeFound() {
+        return maximumDegreeFound;
+    }
+
+    /**
+     * The largest injective chromatic number found, initialized at -1.
+     */
+    private volatile int maximumInjFound = -1;
+
+    public int getMaximumInjFound() {
+        return maximumInjFound;
+    }
+
+    /**
+     * The amount of graphs that are added to the table.
+     */
+    private volatile long amountOfGraphs = 0;
+
+    public long getAmountOfGraphs() {
+        return amountOfGraphs;
+    }
+
+    /**
+     * The amount of graphs for which the time or node limit was reached, they are not in the table.
+     */
+    private volatile long unresolvedGraphs = 0;
+
+    public long getUnresolvedGraphs() {
+        return unresolvedGraphs;
+    }
+
+    /**
+     * Count a graph for which the time or node limit was reached, it is not added to the table.
+     */
+    public void addUnresolved(long amount) {
+        unresolvedGraphs += amount;
+    }
+
+    /**
+     * The amount of graphs that were decided by the filters without calculating their injective chromatic number,
+     * they are not in the table.
+     */
+    private volatile long skippedGraphs = 0;
+
+    public long getSkippedGraphs() {
+        return skippedGraphs;
+    }
+
+    /**
+     * Count a graph that did not pass the filters and of which the injective chromatic number was not calculated, it
+     * is not added to the table.
+     */
+    public void addSkipped(long amount) {
+        skippedGraphs += amount;
+    }
+
+    /**
+     * The user time (in nanoseconds) spent by the thread(s) that filled this table.
+     */
+    private long duration = 0;
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void addDuration(long duration) {
+        this.duration += duration;
+    }
+
+    /**
+     * Returns the amount of graphs with the given maximum degree and injective chromatic number.
+     */
+    public long getCount(int maxDeg, int injNum) {
+        Matrix matrix = counts;
+        if (maxDeg < 0 || injNum < 0 || maxDeg >= matrix.columns || injNum >= matrix.rows) {
+            return 0;
+        }
+        return matrix.cells.get(injNum * matrix.columns + maxDeg);
+    }
+
+    /**
+     * Add a graph with the given maximum degree and injective chromatic number to the table.
+     * @param maxDeg The maximum degree of the graph.
+     * @param injNum The injective chromatic number of the graph.
+     */
+    public void add(int maxDeg, int injNum) {
+        add(maxDeg, injNum, 1);
+    }
+
+    /**
+     * Add the given amount of graphs with the given maximum degree and injective chromatic number to the table.
+     * @param maxDeg The maximum degree of the graphs.
+     * @param injNum The injective chromatic number of the graphs.
+     * @param amount The amount of graphs.
+     */
+    public void add(int maxDeg, int injNum, long amount) {
+        if (maxDeg < 0 || injNum < 0) {
+            throw new IllegalArgumentException("The maximum degree and injective chromatic number can not be negative");
+        }
+        Matrix matrix = counts;
+        if (maxDeg >= matrix.columns || injNum >= matrix.rows) {
+            matrix = grow(maxDeg, injNum);
+        }
+        //Only this thread writes to the table, so the counter can be read and written separately
+        int index = injNum * matrix.columns + maxDeg;
+        matrix.cells.lazySet(index, matrix.cells.get(index) + amount);
+
+        if (maxDeg > maximumDegreeFound){
+            maximumDegreeFound = maxDeg;
+        }
+        if (injNum > maximumInjFound){
+            maximumInjFound = injNum;
+        }
+        amountOfGraphs += amount;
+    }
+
+    /**
+     * Replace the matrix by one that is big enough for the given maximum degree and injective chromatic number.
+     */
+    private Matrix grow(int maxDeg, int injNum) {
+        Matrix old = counts;
+        int columns = Math.max(old.columns, Integer.highestOneBit(maxDeg) * 2);
+        int rows = Math.max(old.rows, Integer.highestOneBit(injNum) * 2);
+        if ((long) columns * rows > Integer.MAX_VALUE) {
+            throw new RuntimeException("The table of results is too big");
+        }
+        Matrix grown = new Matrix(columns, rows);
+        for (int k = 0; k < old.rows; k++) {
+            for (int d = 0; d < old.columns; d++) {
+                grown.cells.lazySet(k * columns + d, old.cells.get(k * old.columns + d));
+            }
+        }
+        counts = grown;
+        return grown;
+    }
+
+    /**
+     * Add all the results of another table to this table.
+     * @param other The table we want to merge into this one.
+     */
+    public void merge(ResultTable other) {
+        for (int k = 0; k <= other.maximumInjFound; k++) {
+            for (int d = 0; d <= other.maximumDegreeFound; d++) {
+                long count = other.getCount(d, k);
+                if (count != 0) {
+                    add(d, k, count);
+                }
+            }
+        }
+        unresolvedGraphs += other.unresolvedGraphs;
+        skippedGraphs += other.skippedGraphs;
+        duration += other.duration;
+    }
+}
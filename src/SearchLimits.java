@@ -0,0 +1,88 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class that keeps the time and node limits of the search of one graph, and writes the graphs for which a limit was
+ * reached (unresolved graphs) to a separate stream, so they can be run again later with bigger limits.
+ * Every unresolved graph is reported on stderr with its bounds, and written to a file (one graph6 notation per line)
+ * if one is given. Several worker threads can report graphs.
+ */
+public class SearchLimits implements Closeable {
+
+    /**
+     * The time limit of one graph in milliseconds, 0 for no limit.
+     */
+    private final long timeoutMillis;
+
+    /**
+     * The maximum amount of search nodes of one graph, 0 for no limit.
+     */
+    private final long nodeLimit;
+
+    /**
+     * The writer of the file with the unresolved graphs, null if there is no such file.
+     */
+    private final PrintWriter unresolvedOutput;
+
+    /**
+     * Constructor for new limits.
+     * @param timeoutMillis The time limit of one graph in milliseconds, 0 for no limit.
+     * @param nodeLimit The maximum amount of search nodes of one graph, 0 for no limit.
+     * @param unresolvedFile The name/path of the file the unresolved graphs are written to, can be null.
+     * @param append True if the unresolved graphs have to be added to the end of the file (when resuming a run).
+     */
+    public SearchLimits(long timeoutMillis, long nodeLimit, String unresolvedFile, boolean append) throws IOException {
+        if (timeoutMillis < 0 || nodeLimit < 0) {
+            throw new IllegalArgumentException("The time and node limits should be positive");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.nodeLimit = nodeLimit;
+        if (unresolvedFile == null) {
+            unresolvedOutput = null;
+        }
+        else {
+            unresolvedOutput = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(unresolvedFile, append), StandardCharsets.US_ASCII)));
+        }
+    }
+
+    /**
+     * Set the limits on a graph before its injective chromatic number is calculated.
+     */
+    public void apply(BTA testBTA) {
+        testBTA.setBudget(timeoutMillis, nodeLimit);
+    }
+
+    /**
+     * Report a graph for which a limit was reached, with the proven lower bound and the amount of colors of the best
+     * coloring found for its injective chromatic number. A graph that was only searched for the filters (--decide) may
+     * have no coloring yet, then only the lower bound is reported.
+     */
+    public synchronized void report(BTA testBTA) {
+        if (testBTA.isCalculated()) {
+            System.err.println("Unresolved: " + testBTA.getGraph6Notation() + "\tmax degree = " + testBTA.getMaxDegree()
+                    + ", " + testBTA.getLowerBound() + " <= inj <= " + testBTA.getInjChromaticNumber()
+                    + "\t" + Arrays.toString(testBTA.getFinalColoring()));
+        }
+        else {
+            System.err.println("Unresolved: " + testBTA.getGraph6Notation() + "\tmax degree = " + testBTA.getMaxDegree()
+                    + ", " + testBTA.getLowerBound() + " <= inj");
+        }
+        if (unresolvedOutput != null) {
+            unresolvedOutput.println(testBTA.getGraph6Notation());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (unresolvedOutput != null) {
+            unresolvedOutput.close();
+            if (unresolvedOutput.checkError()) {
+                throw new IOException("Could not write the file with the unresolved graphs");
+            }
+        }
+    }
+}
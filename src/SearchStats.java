@@ -0,0 +1,162 @@
+package src;
+
+/**
+ * Class that keeps the statistics of the backtracking search of one graph, or the sum of the statistics of several
+ * graphs. The counters are kept in local variables during the search and only stored here when the search ends, so
+ * keeping them costs almost nothing.
+ */
+public class SearchStats {
+
+    /**
+     * The header of the CSV lines written by toCsv().
+     */
+    public static final String CSV_HEADER = "graph6,nodes,backtracks,prunes,maxDepth,solutions,firstSolutionNs,optimalSolutionNs,totalNs";
+
+    /**
+     * The amount of times a vertex got a color during the search.
+     */
+    private long nodes = 0;
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The amount of times the search went back to the previous vertex.
+     */
+    private long backtracks = 0;
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * The amount of partial colorings where the bound cut off a branch: a new color would not give a better coloring
+     * than the best one, or the partial coloring already uses as many colors as the best one.
+     */
+    private long prunes = 0;
+
+    public long getPrunes() {
+        return prunes;
+    }
+
+    /**
+     * The largest amount of vertices colored by the search at the same time (the precolored vertices not counted).
+     */
+    private int maxDepth = 0;
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * The amount of complete colorings the search found that were at least as good as the best one so far.
+     */
+    private long solutions = 0;
+
+    public long getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * The time (in nanoseconds, since the start of the calculation) until the first complete coloring was known, the
+     * coloring of the heuristics.
+     */
+    private long firstSolutionNanos = 0;
+
+    public long getFirstSolutionNanos() {
+        return firstSolutionNanos;
+    }
+
+    /**
+     * The time (in nanoseconds, since the start of the calculation) until the optimal coloring was found.
+     */
+    private long optimalSolutionNanos = 0;
+
+    public long getOptimalSolutionNanos() {
+        return optimalSolutionNanos;
+    }
+
+    /**
+     * The time (in nanoseconds) of the whole calculation, until the optimal coloring was proven to be optimal.
+     */
+    private long totalNanos = 0;
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * The amount of graphs these statistics are from.
+     */
+    private long graphs = 0;
+
+    public long getGraphs() {
+        return graphs;
+    }
+
+    /**
+     * Store the counters of a search.
+     */
+    void addSearch(long nodes, long backtracks, long prunes, int maxDepth, long solutions) {
+        this.nodes += nodes;
+        this.backtracks += backtracks;
+        this.prunes += prunes;
+        this.maxDepth = Math.max(this.maxDepth, maxDepth);
+        this.solutions += solutions;
+    }
+
+    void setFirstSolutionNanos(long firstSolutionNanos) {
+        this.firstSolutionNanos = firstSolutionNanos;
+    }
+
+    void setOptimalSolutionNanos(long optimalSolutionNanos) {
+        this.optimalSolutionNanos = optimalSolutionNanos;
+    }
+
+    void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+        this.graphs = 1;
+    }
+
+    /**
+     * Add the statistics of other graphs to these statistics. The times are added, the maximum depth is the largest.
+     */
+    public void merge(SearchStats other) {
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        prunes += other.prunes;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        solutions += other.solutions;
+        firstSolutionNanos += other.firstSolutionNanos;
+        optimalSolutionNanos += other.optimalSolutionNanos;
+        totalNanos += other.totalNanos;
+        graphs += other.graphs;
+    }
+
+    /**
+     * Returns the statistics as a CSV line, the columns are given by CSV_HEADER.
+     * @param graph6 The graph6 notation of the graph, it never contains a comma or a quote.
+     */
+    public String toCsv(String graph6) {
+        return graph6 + "," + nodes + "," + backtracks + "," + prunes + "," + maxDepth + "," + solutions + ","
+                + firstSolutionNanos + "," + optimalSolutionNanos + "," + totalNanos;
+    }
+
+    /**
+     * Returns the statistics as a JSON object on one line.
+     * @param graph6 The graph6 notation of the graph.
+     */
+    public String toJson(String graph6) {
+        return "{\"graph6\":\"" + graph6.replace("\\", "\\\\") + "\",\"nodes\":" + nodes + ",\"backtracks\":" + backtracks
+                + ",\"prunes\":" + prunes + ",\"maxDepth\":" + maxDepth + ",\"solutions\":" + solutions
+                + ",\"firstSolutionNs\":" + firstSolutionNanos + ",\"optimalSolutionNs\":" + optimalSolutionNanos
+                + ",\"totalNs\":" + totalNanos + "}";
+    }
+
+    @Override
+    public String toString() {
+        return "nodes: " + nodes + ", backtracks: " + backtracks + ", prunes: " + prunes + ", max depth: " + maxDepth
+                + ", time to optimal coloring: " + optimalSolutionNanos / 1000000000.0 + " sec";
+    }
+}
@@ -0,0 +1,110 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class that keeps the best coloring found by the engines that search the subproblems of one graph in parallel.
+ * The amount of colors of the best coloring is an atomic value that every engine reads regularly, so every engine
+ * prunes against the best coloring found by any of them. The node and time limits are shared as well.
+ */
+class SharedIncumbent {
+
+    /**
+     * The amount of colors of the best coloring found.
+     */
+    private final AtomicInteger bound;
+
+    /**
+     * The best coloring found, only changed while holding the lock of this object.
+     */
+    private final int[] coloring;
+
+    /**
+     * True if one of the engines found a better coloring than the one the search started from.
+     */
+    private boolean improved = false;
+
+    /**
+     * The value of System.nanoTime() when the best coloring was found.
+     */
+    private long improvedNanos = 0;
+
+    /**
+     * The amount of search nodes of all engines together, updated every 1024 nodes.
+     */
+    private final AtomicLong nodes = new AtomicLong();
+
+    private final long nodeLimit;
+
+    private final long deadline;
+
+    private final boolean timed;
+
+    /**
+     * True if a limit was reached, every engine then stops.
+     */
+    private volatile boolean aborted = false;
+
+    /**
+     * Constructor that starts from a known coloring.
+     * @param numOfCol The number of colors the coloring uses.
+     * @param coloring A complete injective coloring of the graph.
+     * @param nodeLimit The maximum amount of search nodes of all engines together, 0 for no limit.
+     * @param deadline The value of System.nanoTime() at which the search stops.
+     * @param timed True if the deadline has to be used.
+     */
+    SharedIncumbent(int numOfCol, int[] coloring, long nodeLimit, long deadline, boolean timed) {
+        this.bound = new AtomicInteger(numOfCol);
+        this.coloring = coloring.clone();
+        this.nodeLimit = nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE;
+        this.deadline = deadline;
+        this.timed = timed;
+    }
+
+    int getBound() {
+        return bound.get();
+    }
+
+    synchronized int[] getColoring() {
+        return coloring.clone();
+    }
+
+    synchronized boolean isImproved() {
+        return improved;
+    }
+
+    synchronized long getImprovedNanos() {
+        return improvedNanos;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Keep a coloring if it uses less colors than the best coloring found.
+     * @param numOfCol The number of colors the coloring uses.
+     * @param color The coloring.
+     */
+    synchronized void offer(int numOfCol, int[] color) {
+        if (numOfCol < bound.get()) {
+            System.arraycopy(color, 0, coloring, 0, coloring.length);
+            improved = true;
+            improvedNanos = System.nanoTime();
+            bound.set(numOfCol);
+        }
+    }
+
+    /**
+     * Add search nodes of an engine and check the limits.
+     * @param amount The amount of search nodes since the last call.
+     * @return True if a limit is reached and the engines have to stop.
+     */
+    boolean addNodes(long amount) {
+        if (nodes.addAndGet(amount) >= nodeLimit || (timed && System.nanoTime() - deadline > 0)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+}
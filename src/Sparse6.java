@@ -0,0 +1,190 @@
+package src;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Class that decodes and encodes the sparse6 notation (http://users.cecs.anu.edu.au/~bdm/data/formats.txt), which
+ * is shorter than the graph6 notation for graphs with few edges. After ':' and the size of the graph (like in graph6),
+ * the edges {u, v} with u <= v are given sorted on v as a list of (b, x) pairs: b is 1 bit, x is k bits, with k the
+ * number of bits needed for size - 1. Every character holds 6 bits, 63 is added to make it printable.
+ */
+public class Sparse6 {
+
+    /**
+     * Returns the number of bits of x in the (b, x) pairs of a graph with the given size.
+     */
+    public static int bitsPerVertex(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Returns the size of the graph in the given sparse6 notation.
+     * @param buffer The buffer containing the sparse6 notation.
+     * @param offset The index of the first character of the sparse6 notation, the ':'.
+     * @param length The number of characters of the sparse6 notation.
+     * @return The size of the graph, -1 if the notation is invalid.
+     */
+    public static int size(ByteBuffer buffer, int offset, int length) {
+        if (length < 2 || buffer.get(offset) != ':') {
+            return -1;
+        }
+        return Graph6.size(buffer, offset + 1, length - 1);
+    }
+
+    /**
+     * Decode a graph in sparse6 notation into compressed adjacency lists, the memory used only depends on the amount
+     * of edges. The decoder is at vertex v = 0, for every (b, x): if b is 1, v goes to the next vertex. If x > v, v
+     * goes to x, otherwise {x, v} is an edge. The padding at the end (1 bits) takes v past the last vertex.
+     * @param buffer The buffer containing the sparse6 notation.
+     * @param offset The index of the first character of the sparse6 notation, the ':'.
+     * @param length The number of characters of the sparse6 notation.
+     */
+    public static CsrGraph decode(ByteBuffer buffer, int offset, int length) {
+        int size = size(buffer, offset, length);
+        if (size == -1) {
+            throw new RuntimeException("Invalid sparse6 notation");
+        }
+        int k = bitsPerVertex(size);
+        int index = offset + 1 + Graph6.headerLength(size);
+        int end = offset + length;
+
+        int[] edges = new int[64];
+        int edgeCount = 0;
+        int v = 0;
+        //The lowest bits of the characters that are not used yet
+        long value = 0;
+        int bits = 0;
+        while (true) {
+            while (bits < k + 1 && index < end) {
+                int character = buffer.get(index++) - 63;
+                if (character < 0 || character > 63) {
+                    throw new RuntimeException("Invalid sparse6 notation");
+                }
+                value = (value << 6) | character;
+                bits += 6;
+            }
+            if (bits < k + 1) {
+                break;
+            }
+            bits -= k + 1;
+            int b = (int) (value >>> (bits + k)) & 1;
+            int x = (int) ((value >>> bits) & ((1L << k) - 1));
+            value &= (1L << bits) - 1;
+
+            if (b == 1) {
+                v++;
+            }
+            if (v >= size) {
+                break;
+            }
+            if (x > v) {
+                v = x;
+            }
+            else {
+                if (2 * edgeCount + 2 > edges.length) {
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[2 * edgeCount] = x;
+                edges[2 * edgeCount + 1] = v;
+                edgeCount++;
+            }
+        }
+        return CsrGraph.fromEdges(size, edges, edgeCount);
+    }
+
+    /**
+     * Returns the sparse6 notation of a graph given as bitboards.
+     * @param size The size of the graph.
+     * @param neighbours The neighbours of every vertex, vertex v uses the words v * Graph6.words(size) until
+     *                   (v + 1) * Graph6.words(size).
+     * @return The bytes of the sparse6 notation, without a line break.
+     */
+    public static byte[] encode(int size, long[] neighbours) {
+        int words = Graph6.words(size);
+        int k = bitsPerVertex(size);
+        Writer writer = new Writer(1 + Graph6.headerLength(size));
+        writer.data[0] = ':';
+        Graph6.encodeSize(size, writer.data, 1);
+
+        //The vertex v the decoder is at
+        int current = 0;
+        for (int v = 0; v < size; v++) {
+            for (int w = 0; w <= v >>> 6; w++) {
+                long nb = neighbours[v * words + w];
+                if (w == v >>> 6) {
+                    nb &= (2L << (v & 63)) - 1;
+                }
+                for (; nb != 0; nb &= nb - 1) {
+                    int u = (w << 6) + Long.numberOfTrailingZeros(nb);
+                    if (v == current) {
+                        writer.write(0, 1);
+                    }
+                    else {
+                        writer.write(1, 1);
+                        if (v > current + 1) {
+                            writer.write(v, k);
+                            writer.write(0, 1);
+                        }
+                        current = v;
+                    }
+                    writer.write(u, k);
+                }
+            }
+        }
+
+        //Pad with 1 bits, unless the padding could be read as an edge to vertex size - 1
+        int padding = writer.free();
+        if (padding != 6) {
+            if (padding >= k + 1 && current == size - 2 && size == 1 << k) {
+                writer.write(0, 1);
+                padding--;
+            }
+            writer.write((1 << padding) - 1, padding);
+        }
+        return writer.toBytes();
+    }
+
+    /**
+     * Writes bits into printable characters of 6 bits.
+     */
+    private static class Writer {
+        private byte[] data;
+        private int length;
+        private int value = 0;
+        private int bits = 0;
+
+        private Writer(int header) {
+            data = new byte[Math.max(16, header * 2)];
+            length = header;
+        }
+
+        /**
+         * Write the lowest amount bits of x, the highest bit first.
+         */
+        private void write(int x, int amount) {
+            for (int shift = amount - 1; shift >= 0; shift--) {
+                value = (value << 1) | ((x >>> shift) & 1);
+                if (++bits == 6) {
+                    if (length == data.length) {
+                        data = Arrays.copyOf(data, data.length * 2);
+                    }
+                    data[length++] = (byte) (value + 63);
+                    value = 0;
+                    bits = 0;
+                }
+            }
+        }
+
+        /**
+         * Returns the number of bits that are still free in the current character, 6 if it is empty.
+         */
+        private int free() {
+            return 6 - bits;
+        }
+
+        private byte[] toBytes() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+}
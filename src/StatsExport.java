@@ -0,0 +1,61 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class that writes the statistics of the search of every graph to a file, one line per graph, and keeps the sum of
+ * the statistics of all graphs. A file ending in .json or .jsonl gets JSON lines, any other file gets CSV with a header.
+ * Several worker threads can add graphs, the lines are then written in the order the graphs are finished.
+ */
+public class StatsExport implements Closeable {
+
+    /**
+     * The writer of the statistics file.
+     */
+    private final PrintWriter writer;
+
+    /**
+     * True if JSON lines are written, false for CSV.
+     */
+    private final boolean json;
+
+    /**
+     * The sum of the statistics of all graphs.
+     */
+    private final SearchStats total = new SearchStats();
+
+    public synchronized SearchStats getTotal() {
+        return total;
+    }
+
+    /**
+     * Constructor that opens the statistics file.
+     * @param fileName The name/path of the statistics file.
+     */
+    public StatsExport(String fileName) throws IOException {
+        json = fileName.endsWith(".json") || fileName.endsWith(".jsonl");
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.US_ASCII)));
+        if (!json) {
+            writer.println(SearchStats.CSV_HEADER);
+        }
+    }
+
+    /**
+     * Write the statistics of a graph and add them to the total.
+     * @param graph6 The graph6 notation of the graph.
+     * @param stats The statistics of the search of the graph.
+     */
+    public synchronized void add(String graph6, SearchStats stats) {
+        writer.println(json ? stats.toJson(graph6) : stats.toCsv(graph6));
+        total.merge(stats);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        if (writer.checkError()) {
+            throw new IOException("Could not write the statistics file");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package src;
 
+import java.util.Objects;
+
 public class Tuple<X, Y> {
 
     public final X x;
@@ -10,4 +12,18 @@ public class Tuple<X, Y> {
         this.y = y;
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Tuple)) {
+            return false;
+        }
+        Tuple<?, ?> tuple = (Tuple<?, ?>) other;
+        return Objects.equals(x, tuple.x) && Objects.equals(y, tuple.y);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(x) + Objects.hashCode(y);
+    }
+
 }
\ No newline at end of file
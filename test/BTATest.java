@@ -0,0 +1,95 @@
+package test;
+
+import src.BTA;
+import src.Graph6;
+
+/**
+ * The decision search BTA.isInjectivelyColorable(k) on graphs with a known injective chromatic number, compared with
+ * the full search.
+ *
+ * Usage: java -cp target/classes:target/test test.BTATest
+ */
+public class BTATest {
+
+    public static void main(String[] args) {
+        cycles();
+        petersen();
+        limit();
+        System.out.println("BTATest: OK");
+    }
+
+    /**
+     * The injective neighbours of a cycle are the vertices at distance 2: a cycle of odd length again, two cycles of
+     * half the length for an even length, or two edges for the cycle with 4 vertices.
+     */
+    private static void cycles() {
+        for (int n = 3; n <= 70; n++) {
+            checkDecision(cycle(n), n, n % 4 == 0 ? 2 : 3, "C" + n);
+        }
+    }
+
+    /**
+     * Two vertices of the Petersen graph have a common neighbour if and only if they are not adjacent, so its graph of
+     * injective neighbours is the line graph of K5, which needs 5 colors.
+     */
+    private static void petersen() {
+        checkDecision(petersenGraph(), 10, 5, "Petersen");
+    }
+
+    /**
+     * With a node limit of 1 the answer for the Petersen graph is not always known: false and not resolved, or a proven
+     * answer.
+     */
+    private static void limit() {
+        for (int k = 3; k <= 6; k++) {
+            BTA bta = new BTA(10, petersenGraph());
+            bta.setBudget(0, 1);
+            boolean colorable = bta.isInjectivelyColorable(k);
+            check(bta.isResolved() ? colorable == (k >= 5) : !colorable, "Petersen: injectively " + k
+                    + "-colorable is " + colorable + " with a node limit");
+        }
+    }
+
+    private static long[] petersenGraph() {
+        int[][] edges = {{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 0}, {0, 5}, {1, 6}, {2, 7}, {3, 8}, {4, 9},
+                {5, 7}, {7, 9}, {9, 6}, {6, 8}, {8, 5}};
+        long[] neighbours = new long[10];
+        for (int[] edge : edges) {
+            neighbours[edge[0]] |= 1L << edge[1];
+            neighbours[edge[1]] |= 1L << edge[0];
+        }
+        return neighbours;
+    }
+
+    private static long[] cycle(int n) {
+        int words = Graph6.words(n);
+        long[] neighbours = new long[n * words];
+        for (int v = 0; v < n; v++) {
+            int w = (v + 1) % n;
+            neighbours[v * words + (w >>> 6)] |= 1L << w;
+            neighbours[w * words + (v >>> 6)] |= 1L << v;
+        }
+        return neighbours;
+    }
+
+    private static void checkDecision(long[] neighbours, int n, int expected, String name) {
+        BTA full = new BTA(n, neighbours.clone());
+        full.calcInjChromaticNumber();
+        check(full.getInjChromaticNumber() == expected, name + ": injective chromatic number "
+                + full.getInjChromaticNumber() + " instead of " + expected);
+        for (int k = expected - 2; k <= expected + 1; k++) {
+            BTA bta = new BTA(n, neighbours.clone());
+            boolean colorable = bta.isInjectivelyColorable(k);
+            check(bta.isResolved(), name + ": not resolved for k = " + k);
+            check(colorable == (k >= expected), name + ": injectively " + k + "-colorable is " + colorable);
+            check(bta.isCalculated() == (k + 1 == expected), name + ": isCalculated() is " + bta.isCalculated()
+                    + " for k = " + k);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
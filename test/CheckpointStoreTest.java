@@ -0,0 +1,70 @@
+package test;
+
+import src.CheckpointStore;
+import src.Graph6;
+import src.ResultTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Round trip of a checkpoint file: the progress written by one CheckpointStore is read back by the next one that
+ * resumes from the same file.
+ *
+ * Usage: java -cp target/classes:target/test test.CheckpointStoreTest
+ */
+public class CheckpointStoreTest {
+
+    public static void main(String[] args) throws IOException {
+        largeHit();
+        System.out.println("CheckpointStoreTest: OK");
+    }
+
+    /**
+     * A filtered graph with a graph6 notation of more than 65535 bytes (a cycle with 1000 vertices).
+     */
+    private static void largeHit() throws IOException {
+        int n = 1000;
+        int words = Graph6.words(n);
+        long[] neighbours = new long[n * words];
+        for (int v = 0; v < n; v++) {
+            int w = (v + 1) % n;
+            neighbours[v * words + (w >>> 6)] |= 1L << w;
+            neighbours[w * words + (v >>> 6)] |= 1L << v;
+        }
+        String graph6 = new String(Graph6.encode(n, neighbours), StandardCharsets.US_ASCII);
+        check(graph6.length() > 65535, "the graph6 notation is not longer than 65535 bytes");
+        int[] coloring = new int[n];
+        for (int v = 0; v < n; v++) {
+            coloring[v] = v % 4 / 2 + 1;
+        }
+
+        File file = File.createTempFile("injChromNumber", ".ckpt");
+        file.deleteOnExit();
+        try (CheckpointStore checkpoint = new CheckpointStore(file.getPath(), false, 1)) {
+            checkpoint.addHit(new CheckpointStore.Hit(graph6, 2, 2, coloring));
+            checkpoint.addGraph(2, 2);
+            checkpoint.addSkipped();
+        }
+
+        try (CheckpointStore checkpoint = new CheckpointStore(file.getPath(), true, 1)) {
+            check(checkpoint.getRecoveredGraphs() == 2, "recovered graphs: " + checkpoint.getRecoveredGraphs());
+            ResultTable table = checkpoint.getRecoveredTable();
+            check(table.getCount(2, 2) == 1 && table.getAmountOfGraphs() == 1, "the table is not recovered");
+            check(table.getSkippedGraphs() == 1, "skipped graphs: " + table.getSkippedGraphs());
+            check(checkpoint.getRecoveredHits().size() == 1, "hits: " + checkpoint.getRecoveredHits().size());
+            CheckpointStore.Hit hit = checkpoint.getRecoveredHits().get(0);
+            check(hit.getGraph6().equals(graph6), "the graph6 notation is not recovered");
+            check(hit.getMaxDegree() == 2 && hit.getInjChromaticNumber() == 2, "the hit is not recovered");
+            check(Arrays.equals(hit.getColoring(), coloring), "the coloring is not recovered");
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}